@@ -2,10 +2,12 @@ package com.onnorokom.okr.config;
 
 import com.onnorokom.okr.security.CustomUserDetailsService;
 import com.onnorokom.okr.security.JwtAuthenticationFilter;
+import com.onnorokom.okr.security.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -31,6 +33,11 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll() // Allow auth endpoints
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll() // Load balancer probes
+                        // Metrics are internal: SUPER_ADMIN only (roles come from the ACL index, not authorities)
+                        .requestMatchers("/actuator/**").access((authentication, context) -> new AuthorizationDecision(
+                                authentication.get().getPrincipal() instanceof UserPrincipal principal
+                                        && principal.hasRole("SUPER_ADMIN")))
                         .anyRequest().authenticated() // All other requests need auth
                 );
 
@@ -1,16 +1,19 @@
 package com.onnorokom.okr.controller;
 
 import com.onnorokom.okr.dto.*;
-import com.onnorokom.okr.model.User;
-import com.onnorokom.okr.repository.UserRepository;
+import com.onnorokom.okr.security.UserPrincipal;
 import com.onnorokom.okr.service.AdminService;
 import com.onnorokom.okr.service.PermissionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
@@ -22,6 +25,7 @@ import java.util.UUID;
  * - Team management (CRUD)
  * - Department management (CRUD)
  * - Cycle management (CRUD)
+ * - Audit history
  */
 @RestController
 @RequestMapping("/api/admin")
@@ -34,20 +38,23 @@ public class AdminController {
     private PermissionService permissionService;
 
     @Autowired
-    private UserRepository userRepository;
+    private com.onnorokom.okr.service.CycleService cycleService;
 
     @Autowired
-    private com.onnorokom.okr.service.CycleService cycleService;
+    private com.onnorokom.okr.service.RollupService rollupService;
+
+    @Autowired
+    private com.onnorokom.okr.service.AuditService auditService;
 
     /**
      * Verify that the current user is a SUPER_ADMIN.
      * Throws 403 Forbidden if not.
      */
     private void requireSuperAdmin() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User actor = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"));
-
+        UserPrincipal actor = UserPrincipal.current();
+        if (actor == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
+        }
         if (!permissionService.isSuperAdmin(actor)) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied: Super Admin access required");
         }
@@ -74,9 +81,9 @@ public class AdminController {
     }
 
     @DeleteMapping("/users/{id}")
-    public void deleteUser(@PathVariable UUID id) {
+    public DeletionReportDto deleteUser(@PathVariable UUID id, @RequestParam(defaultValue = "false") boolean dryRun) {
         requireSuperAdmin();
-        adminService.deleteUser(id);
+        return adminService.deleteUser(id, dryRun);
     }
 
     // ==================== TEAM MANAGEMENT ====================
@@ -94,9 +101,9 @@ public class AdminController {
     }
 
     @DeleteMapping("/teams/{id}")
-    public void deleteTeam(@PathVariable UUID id) {
+    public DeletionReportDto deleteTeam(@PathVariable UUID id, @RequestParam(defaultValue = "false") boolean dryRun) {
         requireSuperAdmin();
-        adminService.deleteTeam(id);
+        return adminService.deleteTeam(id, dryRun);
     }
 
     // ==================== DEPARTMENT MANAGEMENT ====================
@@ -114,9 +121,9 @@ public class AdminController {
     }
 
     @DeleteMapping("/departments/{id}")
-    public void deleteDepartment(@PathVariable UUID id) {
+    public DeletionReportDto deleteDepartment(@PathVariable UUID id, @RequestParam(defaultValue = "false") boolean dryRun) {
         requireSuperAdmin();
-        adminService.deleteDepartment(id);
+        return adminService.deleteDepartment(id, dryRun);
     }
 
     // ==================== CYCLE MANAGEMENT ====================
@@ -133,9 +140,78 @@ public class AdminController {
         return cycleService.createCycle(request);
     }
 
+    /**
+     * Copies the source cycle's sheets (optionally filtered) with objectives and KRs into cycle {id}.
+     */
+    @PostMapping("/cycles/{id}/rollover")
+    public CycleRolloverDto rolloverCycle(@PathVariable UUID id, @RequestBody CycleRolloverRequest request,
+            UserPrincipal actor) {
+        requireSuperAdmin();
+        return cycleService.rollover(id, request, actor.getId());
+    }
+
     @DeleteMapping("/cycles/{id}")
-    public void deleteCycle(@PathVariable UUID id) {
+    public DeletionReportDto deleteCycle(@PathVariable UUID id, @RequestParam(defaultValue = "false") boolean dryRun) {
+        requireSuperAdmin();
+        return cycleService.deleteCycle(id, dryRun);
+    }
+
+    // ==================== ROLLUP VERIFICATION ====================
+
+    /**
+     * Recomputes every objective and sheet of a cycle from scratch and reports drift from the
+     * stored running aggregates.
+     */
+    @GetMapping("/cycles/{id}/rollup-drift")
+    public List<RollupDriftDto> verifyRollups(@PathVariable UUID id) {
+        requireSuperAdmin();
+        return rollupService.verifyCycle(id, false);
+    }
+
+    @PostMapping("/cycles/{id}/rollup-repair")
+    public List<RollupDriftDto> repairRollups(@PathVariable UUID id) {
+        requireSuperAdmin();
+        return rollupService.verifyCycle(id, true);
+    }
+
+    // ==================== AUDIT HISTORY ====================
+
+    @GetMapping("/audit")
+    public AuditPageDto getAuditEntries(@RequestParam(required = false) String entityType,
+            @RequestParam(required = false) UUID entityId,
+            @RequestParam(required = false) UUID actorId,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
         requireSuperAdmin();
-        cycleService.deleteCycle(id);
+        return auditService.findEntries(entityType, entityId, actorId, from, to, cursor, limit, includeArchived);
+    }
+
+    /**
+     * Streams the audit log as CSV or NDJSON straight from a database cursor.
+     * Filters: cycle window, entity type and actor. Months already moved to the audit archive are not included.
+     */
+    @GetMapping("/audit/export")
+    public ResponseEntity<StreamingResponseBody> exportAudit(@RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) UUID cycleId,
+            @RequestParam(required = false) String entityType,
+            @RequestParam(required = false) UUID actorId,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        requireSuperAdmin();
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be csv or ndjson");
+        }
+
+        String fileName = "audit-export." + (csv ? "csv" : "ndjson") + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+                : csv ? MediaType.parseMediaType("text/csv") : MediaType.parseMediaType("application/x-ndjson");
+        StreamingResponseBody body = out -> auditService.exportEntries(format, cycleId, entityType, actorId, gzip, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(contentType)
+                .body(body);
     }
 }
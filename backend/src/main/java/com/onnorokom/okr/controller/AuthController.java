@@ -3,12 +3,17 @@ package com.onnorokom.okr.controller;
 import com.onnorokom.okr.dto.AuthDto;
 import com.onnorokom.okr.repository.UserRepository;
 import com.onnorokom.okr.security.JwtTokenProvider;
+import com.onnorokom.okr.security.LoginExecutor;
+import com.onnorokom.okr.security.LoginThrottle;
+import com.onnorokom.okr.security.UserPrincipal;
+import com.onnorokom.okr.service.RefreshTokenService;
 import org.springframework.beans.factory.annotation.Autowired;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -16,7 +21,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import com.onnorokom.okr.dto.ProfileDto;
-import com.onnorokom.okr.repository.RoleAssignmentRepository;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @RestController
@@ -36,52 +42,75 @@ public class AuthController {
     JwtTokenProvider tokenProvider;
 
     @Autowired
-    RoleAssignmentRepository roleAssignmentRepository;
+    RefreshTokenService refreshTokenService;
 
-    @GetMapping("/me")
-    public ResponseEntity<?> getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated() || "anonymousUser".equals(authentication.getPrincipal())) {
-            return ResponseEntity.status(401).body("Not authenticated");
-        }
+    @Autowired
+    LoginThrottle loginThrottle;
+
+    @Autowired
+    LoginExecutor loginExecutor;
 
-        String email = authentication.getName();
-        var userOpt = userRepository.findByEmail(email);
+    /**
+     * Id, team, department and roles come from the resolved principal; the one user load (with
+     * team and department fetched) is only for the display names.
+     */
+    @GetMapping("/me")
+    public ResponseEntity<?> getCurrentUser(UserPrincipal principal) {
+        var userOpt = userRepository.findWithTeamAndDepartmentById(principal.getId());
         if (userOpt.isEmpty()) {
             return ResponseEntity.status(404).body("User not found");
         }
 
         var user = userOpt.get();
         ProfileDto profile = new ProfileDto();
-        profile.setId(user.getId());
-        profile.setEmail(user.getEmail());
+        profile.setId(principal.getId());
+        profile.setEmail(principal.getEmail());
         profile.setName(user.getName());
-
+        profile.setTeamId(principal.getTeamId());
+        profile.setDepartmentId(principal.getDepartmentId());
         if (user.getTeam() != null) {
             profile.setTeamName(user.getTeam().getName());
-            profile.setTeamId(user.getTeam().getId());
         }
-
         if (user.getDepartment() != null) {
             profile.setDepartmentName(user.getDepartment().getName());
-            profile.setDepartmentId(user.getDepartment().getId());
         }
 
-        // Get user roles
-        var roles = roleAssignmentRepository.findByUserId(user.getId());
-        profile.setRoles(roles.stream().map(ra -> {
+        // Roles were resolved with the principal
+        profile.setRoles(principal.getRoles().stream().map(ra -> {
             ProfileDto.RoleInfo ri = new ProfileDto.RoleInfo();
-            ri.setRole(ra.getRole());
-            ri.setScopeType(ra.getScopeType());
-            ri.setScopeId(ra.getScopeId());
+            ri.setRole(ra.role());
+            ri.setScopeType(ra.scopeType());
+            ri.setScopeId(ra.scopeId());
             return ri;
         }).collect(Collectors.toList()));
 
         return ResponseEntity.ok(profile);
     }
 
+    /**
+     * Rate-limited per account and per IP, then verified on the bounded login pool so the servlet
+     * thread is released while BCrypt runs. Both limits answer 429 right away.
+     */
     @PostMapping("/login")
-    public ResponseEntity<?> authenticateUser(@RequestBody AuthDto.LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> authenticateUser(@RequestBody AuthDto.LoginRequest loginRequest,
+            HttpServletRequest request) {
+        if (!loginThrottle.tryAcquire(loginRequest.getEmail(), request.getRemoteAddr())) {
+            return CompletableFuture.completedFuture(tooManyRequests("Too many login attempts, try again later"));
+        }
+        try {
+            return loginExecutor.submit(() -> verifyLogin(loginRequest));
+        } catch (RejectedExecutionException ex) {
+            return CompletableFuture.completedFuture(tooManyRequests("Login service busy, try again shortly"));
+        }
+    }
+
+    private static ResponseEntity<?> tooManyRequests(String message) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(message);
+    }
+
+    private ResponseEntity<?> verifyLogin(AuthDto.LoginRequest loginRequest) {
 
         // Validate PIN and Password manually or via CustomAuth Provider
         // Ideally we check PIN first or together.
@@ -103,15 +132,36 @@ public class AuthController {
             return ResponseEntity.status(401).body("Invalid PIN");
         }
 
-        Authentication authentication = authenticationManager.authenticate(
+        // Throws BadCredentialsException on a wrong password
+        authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         loginRequest.getEmail(),
                         loginRequest.getPassword()));
 
-        SecurityContextHolder.getContext().setAuthentication(authentication);
+        String jwt = tokenProvider.generateToken(user.get());
+        String refreshToken = refreshTokenService.issue(user.get().getId());
+        return ResponseEntity.ok(new AuthDto.JwtAuthenticationResponse(jwt, refreshToken));
+    }
+
+    /**
+     * Renews a short-lived access token without a password check: one hashed-token lookup, and the
+     * refresh token is rotated on every use.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody AuthDto.RefreshRequest request) {
+        var rotation = refreshTokenService.rotate(request.getRefreshToken());
+        if (rotation.isEmpty()) {
+            return ResponseEntity.status(401).body("Invalid refresh token");
+        }
+
+        String jwt = tokenProvider.generateToken(rotation.get().user());
+        return ResponseEntity.ok(new AuthDto.JwtAuthenticationResponse(jwt, rotation.get().refreshToken()));
+    }
 
-        String jwt = tokenProvider.generateToken(loginRequest.getEmail());
-        return ResponseEntity.ok(new AuthDto.JwtAuthenticationResponse(jwt));
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestBody AuthDto.RefreshRequest request) {
+        refreshTokenService.revoke(request.getRefreshToken());
+        return ResponseEntity.ok(new AuthDto.MessageResponse("Logged out."));
     }
 
     @PostMapping("/forgot-password")
@@ -1,17 +1,20 @@
 package com.onnorokom.okr.controller;
 
 import com.onnorokom.okr.dto.DashboardDto;
+import com.onnorokom.okr.dto.DashboardMemberPageDto;
 import com.onnorokom.okr.dto.HierarchicalDashboardDto;
-import com.onnorokom.okr.security.CustomUserDetailsService;
+import com.onnorokom.okr.security.UserPrincipal;
 import com.onnorokom.okr.service.OkrService;
-import com.onnorokom.okr.model.User;
-import com.onnorokom.okr.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/dashboard")
@@ -20,24 +23,39 @@ public class DashboardController {
     @Autowired
     private OkrService okrService;
 
-    @Autowired
-    private UserRepository userRepository;
-
     @GetMapping
-    public HierarchicalDashboardDto getDashboard() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
-
+    public HierarchicalDashboardDto getDashboard(UserPrincipal user, WebRequest webRequest) {
+        if (webRequest.checkNotModified(okrService.getDashboardETag(user.getEmail()))) {
+            return null; // 304 Not Modified
+        }
         return okrService.getHierarchicalDashboard(user);
     }
 
     @GetMapping("/flat")
-    public DashboardDto getFlatDashboard() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
-
+    public DashboardDto getFlatDashboard(UserPrincipal user, WebRequest webRequest) {
+        if (webRequest.checkNotModified(okrService.getDashboardETag(user.getEmail()))) {
+            return null; // 304 Not Modified
+        }
         return okrService.getDashboard(user);
     }
+
+    // ==================== LAZY TREE EXPANSION ====================
+
+    @GetMapping("/top")
+    public HierarchicalDashboardDto getTopLevel(UserPrincipal user) {
+        return okrService.getDashboardTopLevel(user);
+    }
+
+    @GetMapping("/teams/{teamId}/departments")
+    public List<HierarchicalDashboardDto.DepartmentNode> getTeamDepartments(@PathVariable UUID teamId, UserPrincipal user) {
+        return okrService.getDashboardDepartments(user, teamId);
+    }
+
+    @GetMapping("/departments/{departmentId}/members")
+    public DashboardMemberPageDto getDepartmentMembers(@PathVariable UUID departmentId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int limit,
+            UserPrincipal user) {
+        return okrService.getDashboardMembers(user, departmentId, after, limit);
+    }
 }
@@ -1,14 +1,13 @@
 package com.onnorokom.okr.controller;
 
 import com.onnorokom.okr.dto.KeyResultDto;
+import com.onnorokom.okr.dto.ProgressSeriesDto;
 import com.onnorokom.okr.dto.UpdateKeyResultRequest;
-import com.onnorokom.okr.model.User;
-import com.onnorokom.okr.repository.UserRepository;
+import com.onnorokom.okr.security.UserPrincipal;
 import com.onnorokom.okr.service.OkrService;
+import com.onnorokom.okr.service.ProgressHistoryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.UUID;
@@ -21,24 +20,24 @@ public class KeyResultController {
     private OkrService okrService;
 
     @Autowired
-    private UserRepository userRepository;
+    private ProgressHistoryService progressHistoryService;
 
     @PatchMapping("/{id}")
-    public KeyResultDto updateKeyResult(@PathVariable UUID id, @RequestBody UpdateKeyResultRequest request) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        User actor = userRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
-
+    public KeyResultDto updateKeyResult(@PathVariable UUID id, @RequestBody UpdateKeyResultRequest request, UserPrincipal actor) {
         return okrService.updateKeyResult(id, request, actor);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteKeyResult(@PathVariable UUID id) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        User actor = userRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
-
+    public ResponseEntity<Void> deleteKeyResult(@PathVariable UUID id, UserPrincipal actor) {
         okrService.deleteKeyResult(id, actor);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Progress trend across the cycle, downsampled to {@code points} buckets.
+     */
+    @GetMapping("/{id}/history")
+    public ProgressSeriesDto getHistory(@PathVariable UUID id, @RequestParam(defaultValue = "60") int points) {
+        return progressHistoryService.getKeyResultHistory(id, points);
+    }
 }
@@ -3,14 +3,13 @@ package com.onnorokom.okr.controller;
 import com.onnorokom.okr.dto.CreateKeyResultRequest;
 import com.onnorokom.okr.dto.KeyResultDto;
 import com.onnorokom.okr.dto.ObjectiveDto;
+import com.onnorokom.okr.dto.ProgressSeriesDto;
 import com.onnorokom.okr.dto.UpdateObjectiveRequest;
-import com.onnorokom.okr.model.User;
-import com.onnorokom.okr.repository.UserRepository;
+import com.onnorokom.okr.security.UserPrincipal;
 import com.onnorokom.okr.service.OkrService;
+import com.onnorokom.okr.service.ProgressHistoryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.UUID;
@@ -23,33 +22,29 @@ public class ObjectiveController {
     private OkrService okrService;
 
     @Autowired
-    private UserRepository userRepository;
+    private ProgressHistoryService progressHistoryService;
 
     @PatchMapping("/{id}")
-    public ObjectiveDto updateObjective(@PathVariable UUID id, @RequestBody UpdateObjectiveRequest request) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        User actor = userRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
-
+    public ObjectiveDto updateObjective(@PathVariable UUID id, @RequestBody UpdateObjectiveRequest request, UserPrincipal actor) {
         return okrService.updateObjective(id, request, actor);
     }
 
     @PostMapping("/{id}/key-results")
-    public KeyResultDto createKeyResult(@PathVariable UUID id, @RequestBody CreateKeyResultRequest request) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        User actor = userRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
-
+    public KeyResultDto createKeyResult(@PathVariable UUID id, @RequestBody CreateKeyResultRequest request, UserPrincipal actor) {
         return okrService.createKeyResult(id, request, actor);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteObjective(@PathVariable UUID id) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        User actor = userRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
-
+    public ResponseEntity<Void> deleteObjective(@PathVariable UUID id, UserPrincipal actor) {
         okrService.deleteObjective(id, actor);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Progress trend across the cycle, downsampled to {@code points} buckets.
+     */
+    @GetMapping("/{id}/history")
+    public ProgressSeriesDto getHistory(@PathVariable UUID id, @RequestParam(defaultValue = "60") int points) {
+        return progressHistoryService.getObjectiveHistory(id, points);
+    }
 }
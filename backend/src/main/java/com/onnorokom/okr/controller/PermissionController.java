@@ -0,0 +1,24 @@
+package com.onnorokom.okr.controller;
+
+import com.onnorokom.okr.dto.PermissionCheckDto;
+import com.onnorokom.okr.dto.PermissionCheckRequest;
+import com.onnorokom.okr.security.UserPrincipal;
+import com.onnorokom.okr.service.OkrService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/permissions")
+public class PermissionController {
+
+    @Autowired
+    private OkrService okrService;
+
+    /**
+     * canView/canManage for a batch of sheets and key results in one call.
+     */
+    @PostMapping("/check")
+    public PermissionCheckDto check(@RequestBody PermissionCheckRequest request, UserPrincipal actor) {
+        return okrService.checkPermissions(request, actor);
+    }
+}
@@ -1,16 +1,21 @@
 package com.onnorokom.okr.controller;
 
+import com.onnorokom.okr.dto.BulkKeyResultUpdateRequest;
 import com.onnorokom.okr.dto.CreateObjectiveRequest;
+import com.onnorokom.okr.dto.KeyResultDto;
 import com.onnorokom.okr.dto.ObjectiveDto;
+import com.onnorokom.okr.dto.ProgressSeriesDto;
 import com.onnorokom.okr.dto.SheetDetailDto;
-import com.onnorokom.okr.model.User;
-import com.onnorokom.okr.repository.UserRepository;
+import com.onnorokom.okr.dto.SheetSummaryDto;
+import com.onnorokom.okr.security.UserPrincipal;
 import com.onnorokom.okr.service.OkrService;
+import com.onnorokom.okr.service.ProgressHistoryService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -21,19 +26,44 @@ public class SheetController {
     private OkrService okrService;
 
     @Autowired
-    private UserRepository userRepository;
+    private ProgressHistoryService progressHistoryService;
+
+    /**
+     * Sheets of the active cycle the caller can edit.
+     */
+    @GetMapping("/editable")
+    public List<SheetSummaryDto> getEditableSheets(UserPrincipal user) {
+        return okrService.getEditableSheets(user);
+    }
 
     @GetMapping("/{id}")
-    public SheetDetailDto getSheet(@PathVariable UUID id) {
-        return okrService.getSheetDetails(id);
+    public SheetDetailDto getSheet(@PathVariable UUID id, UserPrincipal user, WebRequest webRequest) {
+        if (webRequest.checkNotModified(okrService.getSheetETag(id, user.getEmail()))) {
+            return null; // 304 Not Modified
+        }
+        return okrService.getSheetDetails(id, user);
     }
 
-    @PostMapping("/{id}/objectives")
-    public ObjectiveDto createObjective(@PathVariable UUID id, @RequestBody CreateObjectiveRequest request) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        User actor = userRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
+    @GetMapping("/{id}/as-of")
+    public SheetDetailDto getSheetAsOf(@PathVariable UUID id, @RequestParam Instant at) {
+        return okrService.getSheetDetailsAsOf(id, at);
+    }
 
+    @PostMapping("/{id}/objectives")
+    public ObjectiveDto createObjective(@PathVariable UUID id, @RequestBody CreateObjectiveRequest request, UserPrincipal actor) {
         return okrService.createObjective(id, request, actor);
     }
+
+    @PatchMapping("/{id}/key-results")
+    public List<KeyResultDto> updateKeyResults(@PathVariable UUID id, @RequestBody BulkKeyResultUpdateRequest request, UserPrincipal actor) {
+        return okrService.updateKeyResults(id, request.getUpdates(), actor);
+    }
+
+    /**
+     * Progress trend across the cycle, downsampled to {@code points} buckets.
+     */
+    @GetMapping("/{id}/history")
+    public ProgressSeriesDto getHistory(@PathVariable UUID id, @RequestParam(defaultValue = "60") int points) {
+        return progressHistoryService.getSheetHistory(id, points);
+    }
 }
@@ -0,0 +1,12 @@
+package com.onnorokom.okr.dto;
+
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+public class AccessDto {
+    private UUID id; // Sheet or key result id
+    private boolean canView;
+    private boolean canManage;
+}
@@ -0,0 +1,19 @@
+package com.onnorokom.okr.dto;
+
+import lombok.Data;
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+public class AuditEntryDto {
+    private UUID id;
+    private UUID actorId;
+    private String actorEmail;
+    private String actorName;
+    private String entityType;
+    private UUID entityId;
+    private String fieldName;
+    private String oldValue;
+    private String newValue;
+    private Instant occurredAt;
+}
@@ -0,0 +1,11 @@
+package com.onnorokom.okr.dto;
+
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class AuditPageDto {
+    private List<AuditEntryDto> entries = new ArrayList<>(); // Newest first
+    private String nextCursor; // Pass as "cursor" to fetch the next page; null on the last page
+}
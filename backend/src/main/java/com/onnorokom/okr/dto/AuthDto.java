@@ -13,13 +13,20 @@ public class AuthDto {
     @Data
     public static class JwtAuthenticationResponse {
         private String accessToken;
+        private String refreshToken;
         private String tokenType = "Bearer";
 
-        public JwtAuthenticationResponse(String accessToken) {
+        public JwtAuthenticationResponse(String accessToken, String refreshToken) {
             this.accessToken = accessToken;
+            this.refreshToken = refreshToken;
         }
     }
 
+    @Data
+    public static class RefreshRequest {
+        private String refreshToken;
+    }
+
     @Data
     public static class ForgotPasswordRequest {
         private String email;
@@ -0,0 +1,18 @@
+package com.onnorokom.okr.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class BulkKeyResultUpdateRequest {
+    private List<Item> updates = new ArrayList<>();
+
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    public static class Item extends UpdateKeyResultRequest {
+        private UUID keyResultId;
+    }
+}
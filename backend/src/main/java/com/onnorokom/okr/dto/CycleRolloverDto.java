@@ -0,0 +1,18 @@
+package com.onnorokom.okr.dto;
+
+import lombok.Data;
+import java.util.UUID;
+
+@Data
+public class CycleRolloverDto {
+    private UUID sourceCycleId;
+    private UUID targetCycleId;
+
+    // Rows created by this run; 0 everywhere when the rollover had already been done
+    private int sheetsCreated;
+    private int objectivesCreated;
+    private int keyResultsCreated;
+    private int sheetsUpdated; // Target sheets whose rollups were recomputed
+
+    private long durationMs;
+}
@@ -0,0 +1,12 @@
+package com.onnorokom.okr.dto;
+
+import lombok.Data;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class CycleRolloverRequest {
+    private UUID sourceCycleId;
+    private List<String> scopeTypes; // Optional: only sheets of these scope types (COMPANY, TEAM, DEPARTMENT, PERSONAL)
+    private List<UUID> sheetIds; // Optional: only these source sheets
+}
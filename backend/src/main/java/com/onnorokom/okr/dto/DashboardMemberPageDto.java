@@ -0,0 +1,11 @@
+package com.onnorokom.okr.dto;
+
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class DashboardMemberPageDto {
+    private List<HierarchicalDashboardDto.MemberNode> members = new ArrayList<>();
+    private String nextCursor; // Pass as "after" to fetch the next page; null on the last page
+}
@@ -0,0 +1,16 @@
+package com.onnorokom.okr.dto;
+
+import lombok.Data;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+public class DeletionReportDto {
+    private String target; // USER, TEAM, DEPARTMENT, CYCLE
+    private UUID targetId;
+    private boolean dryRun; // true = nothing was changed, counts are what a real run would touch
+
+    private Map<String, Long> counts = new LinkedHashMap<>(); // e.g. keyResults -> rows deleted, in execution order
+    private long durationMs;
+}
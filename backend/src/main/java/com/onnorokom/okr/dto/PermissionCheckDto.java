@@ -0,0 +1,12 @@
+package com.onnorokom.okr.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class PermissionCheckDto {
+    private List<AccessDto> sheets = new ArrayList<>();
+    private List<AccessDto> keyResults = new ArrayList<>();
+}
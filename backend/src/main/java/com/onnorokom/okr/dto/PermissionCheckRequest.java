@@ -0,0 +1,13 @@
+package com.onnorokom.okr.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class PermissionCheckRequest {
+    private List<UUID> sheetIds = new ArrayList<>();
+    private List<UUID> keyResultIds = new ArrayList<>();
+}
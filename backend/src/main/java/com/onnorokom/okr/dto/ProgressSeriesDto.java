@@ -0,0 +1,22 @@
+package com.onnorokom.okr.dto;
+
+import lombok.Data;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class ProgressSeriesDto {
+    private String scopeType; // KEY_RESULT, OBJECTIVE, SHEET
+    private UUID scopeId;
+    private Instant from;
+    private Instant to;
+    private List<Point> points = new ArrayList<>();
+
+    @Data
+    public static class Point {
+        private Instant at; // End of the bucket
+        private Double progress; // Progress as of "at"; null before the first check-in
+    }
+}
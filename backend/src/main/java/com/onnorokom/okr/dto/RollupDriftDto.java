@@ -0,0 +1,20 @@
+package com.onnorokom.okr.dto;
+
+import lombok.Data;
+import java.util.UUID;
+
+@Data
+public class RollupDriftDto {
+    private String entityType; // OBJECTIVE, SHEET
+    private UUID entityId;
+
+    private Double storedProgress;
+    private Double recomputedProgress;
+
+    private Double storedSum;
+    private Double recomputedSum;
+    private Integer storedCount;
+    private Integer recomputedCount;
+
+    private boolean repaired;
+}
@@ -19,5 +19,7 @@ public class SheetDetailDto {
     private Double computedTimeProgress;
     private Long daysRemaining;
 
+    private boolean canEdit;
+
     private List<ObjectiveDto> objectives;
 }
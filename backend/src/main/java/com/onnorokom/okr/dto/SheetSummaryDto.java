@@ -16,6 +16,8 @@ public class SheetSummaryDto {
     private Long daysRemaining;
     private Long totalDays;
 
+    private boolean canEdit; // Per caller; never cached
+
     // For Dashboard card display
     private List<ObjectiveSummaryDto> objectives;
 
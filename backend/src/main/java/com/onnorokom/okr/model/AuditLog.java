@@ -3,6 +3,8 @@ package com.onnorokom.okr.model;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.util.UUID;
 import java.time.Instant;
 
@@ -25,8 +27,8 @@ public class AuditLog {
     @Column(name = "entity_id", nullable = false)
     private UUID entityId;
 
-    @Column(name = "field_name", nullable = false)
-    private String fieldName;
+    @Column(name = "field_name")
+    private String fieldName; // null on compact rows
 
     @Column(name = "old_value", columnDefinition = "TEXT")
     private String oldValue;
@@ -34,6 +36,10 @@ public class AuditLog {
     @Column(name = "new_value", columnDefinition = "TEXT")
     private String newValue;
 
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "changes", columnDefinition = "jsonb")
+    private String changes; // Compact rows: {"field": [old, new], ...}
+
     @Column(name = "occurred_at", insertable = false, updatable = false)
     private Instant occurredAt;
 }
@@ -0,0 +1,46 @@
+package com.onnorokom.okr.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.UUID;
+import java.time.Instant;
+
+/**
+ * Append-only snapshot of a KR's value and progress at one point in time. Ids are stored as plain
+ * columns so writing a check-in never loads the KR, objective or sheet.
+ */
+@Entity
+@Table(name = "key_result_checkins")
+@Data
+@NoArgsConstructor
+public class KeyResultCheckIn {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @Column(name = "key_result_id", nullable = false)
+    private UUID keyResultId;
+
+    @Column(name = "objective_id", nullable = false)
+    private UUID objectiveId;
+
+    @Column(name = "sheet_id", nullable = false)
+    private UUID sheetId;
+
+    @Column(name = "recorded_at", nullable = false)
+    private Instant recordedAt;
+
+    @Column(name = "current_value")
+    private Double currentValue;
+
+    @Column(name = "computed_progress", nullable = false)
+    private Double computedProgress;
+
+    @Column(name = "confidence_level")
+    private String confidenceLevel;
+
+    // Tombstone: the KR was deleted at recordedAt; its earlier check-ins are kept
+    @Column(name = "removed", nullable = false)
+    private boolean removed;
+}
@@ -33,9 +33,17 @@ public class Objective {
     @Column(name = "weight")
     private Integer weight = 100;
 
-    @Column(name = "computed_progress")
+    // Written only by RollupService in SQL, so saving the entity never overwrites a newer rollup
+    @Column(name = "computed_progress", insertable = false, updatable = false)
     private Double computedProgress = 0.0;
 
+    // Running aggregates over key results, maintained in SQL by RollupService
+    @Column(name = "kr_progress_sum", insertable = false, updatable = false)
+    private Double krProgressSum;
+
+    @Column(name = "kr_count", insertable = false, updatable = false)
+    private Integer krCount;
+
     @Column(name = "created_at", insertable = false, updatable = false)
     private Instant createdAt;
 
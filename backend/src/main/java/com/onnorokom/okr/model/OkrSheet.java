@@ -28,12 +28,24 @@ public class OkrSheet {
     @Column(name = "is_held")
     private Boolean isHeld = false;
 
-    @Column(name = "computed_overall_progress")
+    // Written only by RollupService in SQL, so saving the entity never overwrites a newer rollup
+    @Column(name = "computed_overall_progress", insertable = false, updatable = false)
     private Double computedOverallProgress = 0.0;
 
     @Column(name = "computed_time_progress")
     private Double computedTimeProgress = 0.0;
 
+    // Running aggregates over objectives, maintained in SQL by RollupService
+    @Column(name = "objective_progress_sum", insertable = false, updatable = false)
+    private Double objectiveProgressSum;
+
+    @Column(name = "objective_count", insertable = false, updatable = false)
+    private Integer objectiveCount;
+
+    // Bumped in SQL by every objective/KR mutation and rollup; never written from the entity
+    @Column(name = "version", insertable = false, updatable = false)
+    private Long version;
+
     @Column(name = "created_at", insertable = false, updatable = false)
     private Instant createdAt;
 }
@@ -0,0 +1,46 @@
+package com.onnorokom.okr.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * One ancestor/descendant pair of the company -> team -> department -> user hierarchy, including
+ * a depth-0 row per node. Maintained through {@link com.onnorokom.okr.repository.OrgClosureRepository}.
+ */
+@Entity
+@Table(name = "org_closure")
+@IdClass(OrgClosure.Key.class)
+@Data
+@NoArgsConstructor
+public class OrgClosure {
+    @Id
+    @Column(name = "ancestor_id")
+    private UUID ancestorId;
+
+    @Id
+    @Column(name = "descendant_id")
+    private UUID descendantId;
+
+    @Column(name = "ancestor_type", nullable = false)
+    private String ancestorType; // COMPANY, TEAM, DEPARTMENT, USER
+
+    @Column(name = "descendant_type", nullable = false)
+    private String descendantType;
+
+    @Column(nullable = false)
+    private Integer depth;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private UUID ancestorId;
+        private UUID descendantId;
+    }
+}
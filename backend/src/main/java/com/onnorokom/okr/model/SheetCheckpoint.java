@@ -0,0 +1,32 @@
+package com.onnorokom.okr.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import java.util.UUID;
+import java.time.Instant;
+
+@Entity
+@Table(name = "sheet_checkpoints")
+@Data
+@NoArgsConstructor
+public class SheetCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @Column(name = "sheet_id", nullable = false)
+    private UUID sheetId;
+
+    @Column(name = "taken_at", nullable = false)
+    private Instant takenAt;
+
+    @Column(name = "sheet_version", nullable = false)
+    private Long sheetVersion; // okr_sheets.version when taken; unchanged sheets are not checkpointed again
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "snapshot", nullable = false, columnDefinition = "jsonb")
+    private String snapshot; // JSON list of ObjectiveDto with their key results
+}
@@ -38,6 +38,10 @@ public class User {
     @Column(name = "is_blocked")
     private Boolean isBlocked = false;
 
+    // Only changed through UserRepository.bumpSecurityVersion, never by saving the entity
+    @Column(name = "security_version", insertable = false, updatable = false)
+    private Long securityVersion;
+
     @Column(name = "created_at", insertable = false, updatable = false)
     private Instant createdAt;
 }
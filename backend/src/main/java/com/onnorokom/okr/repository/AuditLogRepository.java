@@ -2,8 +2,14 @@ package com.onnorokom.okr.repository;
 
 import com.onnorokom.okr.model.AuditLog;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.UUID;
 
-public interface AuditLogRepository extends JpaRepository<AuditLog, UUID> {
-    void deleteByActorId(UUID actorId);
+public interface AuditLogRepository extends JpaRepository<AuditLog, UUID>, AuditLogRepositoryCustom {
+    // Single set-based DELETE (pruned per partition via idx_audit_log_actor) instead of loading every row
+    @Modifying
+    @Query("delete from AuditLog a where a.actor.id = :actorId")
+    void deleteByActorId(@Param("actorId") UUID actorId);
 }
@@ -0,0 +1,38 @@
+package com.onnorokom.okr.repository;
+
+import com.onnorokom.okr.dto.AuditEntryDto;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+public interface AuditLogRepositoryCustom {
+
+    /**
+     * Returns up to {@code limit} entries matching the non-null filters, ordered by
+     * (occurred_at, id) descending and starting strictly after the (beforeAt, beforeId) keyset
+     * position when given. {@code from} is inclusive, {@code to} exclusive. {@code limit} counts
+     * stored rows; a compact row comes back as one entry per changed field, all sharing its id.
+     */
+    List<AuditEntryDto> findPage(String entityType, UUID entityId, UUID actorId, Instant from, Instant to,
+            Instant beforeAt, UUID beforeId, int limit);
+
+    /**
+     * Entries of the given entities with {@code after < occurred_at <= upTo} (no upper bound when
+     * {@code upTo} is null), oldest first.
+     */
+    List<AuditEntryDto> findByEntityIds(Collection<UUID> entityIds, Instant after, Instant upTo);
+
+    /**
+     * Streams matching entries oldest first through a forward-only cursor, one row in memory at a
+     * time. Must run inside a transaction, otherwise the driver buffers the whole result.
+     */
+    void streamEntries(String entityType, UUID actorId, Instant from, Instant to, Consumer<AuditEntryDto> sink);
+
+    /**
+     * Streams every entry of one audit_log partition table, newest first, like {@link #streamEntries}.
+     */
+    void streamPartition(String partition, Consumer<AuditEntryDto> sink);
+}
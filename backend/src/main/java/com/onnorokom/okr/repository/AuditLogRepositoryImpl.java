@@ -0,0 +1,183 @@
+package com.onnorokom.okr.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onnorokom.okr.dto.AuditEntryDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Audit reads in plain SQL: keyset pages (the (occurred_at, id) row comparison has no JPQL
+ * equivalent), replay windows and cursor-streamed exports. Each filter combination is served by
+ * one of the audit_log composite indexes.
+ *
+ * Every read goes through {@link #expand}, which turns a compact row (one mutation, {@code changes}
+ * map) into one entry per field, so callers always see per-field history whatever the audit format.
+ */
+public class AuditLogRepositoryImpl implements AuditLogRepositoryCustom {
+
+    private static final TypeReference<LinkedHashMap<String, List<String>>> CHANGES_TYPE = new TypeReference<>() {
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private static final String SELECT = "SELECT a.id, a.actor_user_id, u.email, u.name, a.entity_type, a.entity_id, "
+            + "a.field_name, a.old_value, a.new_value, a.changes::text AS changes, a.occurred_at "
+            + "FROM audit_log a LEFT JOIN users u ON u.id = a.actor_user_id";
+
+    @Override
+    public List<AuditEntryDto> findPage(String entityType, UUID entityId, UUID actorId, Instant from, Instant to,
+            Instant beforeAt, UUID beforeId, int limit) {
+        StringBuilder sql = new StringBuilder(SELECT + " WHERE TRUE");
+        List<Object> args = new ArrayList<>();
+
+        if (entityType != null) {
+            sql.append(" AND a.entity_type = ?");
+            args.add(entityType);
+        }
+        if (entityId != null) {
+            sql.append(" AND a.entity_id = ?");
+            args.add(entityId);
+        }
+        if (actorId != null) {
+            sql.append(" AND a.actor_user_id = ?");
+            args.add(actorId);
+        }
+        if (from != null) {
+            sql.append(" AND a.occurred_at >= ?");
+            args.add(Timestamp.from(from));
+        }
+        if (to != null) {
+            sql.append(" AND a.occurred_at < ?");
+            args.add(Timestamp.from(to));
+        }
+        if (beforeAt != null) {
+            sql.append(" AND (a.occurred_at, a.id) < (?, ?)");
+            args.add(Timestamp.from(beforeAt));
+            args.add(beforeId);
+        }
+        sql.append(" ORDER BY a.occurred_at DESC, a.id DESC LIMIT ?");
+        args.add(limit);
+
+        return queryExpanded(sql.toString(), args);
+    }
+
+    @Override
+    public List<AuditEntryDto> findByEntityIds(Collection<UUID> entityIds, Instant after, Instant upTo) {
+        if (entityIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        StringBuilder sql = new StringBuilder(SELECT + " WHERE a.entity_id IN (");
+        List<Object> args = new ArrayList<>(entityIds);
+        sql.append(String.join(", ", Collections.nCopies(entityIds.size(), "?")));
+        sql.append(") AND a.occurred_at > ?");
+        args.add(Timestamp.from(after));
+        if (upTo != null) {
+            sql.append(" AND a.occurred_at <= ?");
+            args.add(Timestamp.from(upTo));
+        }
+        sql.append(" ORDER BY a.occurred_at, a.id");
+        return queryExpanded(sql.toString(), args);
+    }
+
+    @Override
+    public void streamEntries(String entityType, UUID actorId, Instant from, Instant to,
+            Consumer<AuditEntryDto> sink) {
+        StringBuilder sql = new StringBuilder(SELECT + " WHERE TRUE");
+        List<Object> args = new ArrayList<>();
+        if (entityType != null) {
+            sql.append(" AND a.entity_type = ?");
+            args.add(entityType);
+        }
+        if (actorId != null) {
+            sql.append(" AND a.actor_user_id = ?");
+            args.add(actorId);
+        }
+        if (from != null) {
+            sql.append(" AND a.occurred_at >= ?");
+            args.add(Timestamp.from(from));
+        }
+        if (to != null) {
+            sql.append(" AND a.occurred_at < ?");
+            args.add(Timestamp.from(to));
+        }
+        sql.append(" ORDER BY a.occurred_at, a.id");
+        stream(sql.toString(), args, sink);
+    }
+
+    @Override
+    public void streamPartition(String partition, Consumer<AuditEntryDto> sink) {
+        String sql = SELECT.replace("FROM audit_log a", "FROM " + partition + " a")
+                + " ORDER BY a.occurred_at DESC, a.id DESC";
+        stream(sql, List.of(), sink);
+    }
+
+    private void stream(String sql, List<Object> args, Consumer<AuditEntryDto> sink) {
+        JdbcTemplate cursor = new JdbcTemplate(jdbcTemplate.getDataSource());
+        cursor.setFetchSize(STREAM_FETCH_SIZE);
+        cursor.query(sql, (RowCallbackHandler) rs -> expand(rs, sink), args.toArray());
+    }
+
+    private List<AuditEntryDto> queryExpanded(String sql, List<Object> args) {
+        List<AuditEntryDto> entries = new ArrayList<>();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> expand(rs, entries::add), args.toArray());
+        return entries;
+    }
+
+    private void expand(ResultSet rs, Consumer<AuditEntryDto> sink) throws SQLException {
+        String changes = rs.getString("changes");
+        if (changes == null) {
+            sink.accept(mapRow(rs));
+            return;
+        }
+        Map<String, List<String>> fields;
+        try {
+            fields = objectMapper.readValue(changes, CHANGES_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new SQLException("Malformed audit changes in row " + rs.getString("id"), e);
+        }
+        for (Map.Entry<String, List<String>> field : fields.entrySet()) {
+            AuditEntryDto dto = mapRow(rs);
+            dto.setFieldName(field.getKey());
+            dto.setOldValue(field.getValue().get(0));
+            dto.setNewValue(field.getValue().get(1));
+            sink.accept(dto);
+        }
+    }
+
+    private static AuditEntryDto mapRow(ResultSet rs) throws SQLException {
+        AuditEntryDto dto = new AuditEntryDto();
+        dto.setId(rs.getObject("id", UUID.class));
+        dto.setActorId(rs.getObject("actor_user_id", UUID.class));
+        dto.setActorEmail(rs.getString("email"));
+        dto.setActorName(rs.getString("name"));
+        dto.setEntityType(rs.getString("entity_type"));
+        dto.setEntityId(rs.getObject("entity_id", UUID.class));
+        dto.setFieldName(rs.getString("field_name"));
+        dto.setOldValue(rs.getString("old_value"));
+        dto.setNewValue(rs.getString("new_value"));
+        dto.setOccurredAt(rs.getTimestamp("occurred_at").toInstant());
+        return dto;
+    }
+}
@@ -0,0 +1,44 @@
+package com.onnorokom.okr.repository;
+
+import com.onnorokom.okr.model.KeyResultCheckIn;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public interface KeyResultCheckInRepository extends JpaRepository<KeyResultCheckIn, UUID> {
+
+    interface Point {
+        UUID getKeyResultId();
+
+        UUID getObjectiveId();
+
+        Instant getRecordedAt();
+
+        Double getComputedProgress();
+
+        boolean isRemoved();
+    }
+
+    @Query("select c.keyResultId as keyResultId, c.objectiveId as objectiveId, c.recordedAt as recordedAt, "
+            + "c.computedProgress as computedProgress, c.removed as removed from KeyResultCheckIn c "
+            + "where c.keyResultId = :krId and c.recordedAt < :to order by c.recordedAt")
+    List<Point> findPointsByKeyResultId(@Param("krId") UUID krId, @Param("to") Instant to);
+
+    @Query("select c.keyResultId as keyResultId, c.objectiveId as objectiveId, c.recordedAt as recordedAt, "
+            + "c.computedProgress as computedProgress, c.removed as removed from KeyResultCheckIn c "
+            + "where c.sheetId = :sheetId and c.objectiveId = :objectiveId and c.recordedAt < :to order by c.recordedAt")
+    List<Point> findPointsByObjectiveId(@Param("sheetId") UUID sheetId, @Param("objectiveId") UUID objectiveId,
+            @Param("to") Instant to);
+
+    @Query("select c.keyResultId as keyResultId, c.objectiveId as objectiveId, c.recordedAt as recordedAt, "
+            + "c.computedProgress as computedProgress, c.removed as removed from KeyResultCheckIn c "
+            + "where c.sheetId = :sheetId and c.recordedAt < :to order by c.recordedAt")
+    List<Point> findPointsBySheetId(@Param("sheetId") UUID sheetId, @Param("to") Instant to);
+
+    List<KeyResultCheckIn> findBySheetIdAndRecordedAtGreaterThanAndRecordedAtLessThanEqualOrderByRecordedAtAsc(
+            UUID sheetId, Instant after, Instant upTo);
+}
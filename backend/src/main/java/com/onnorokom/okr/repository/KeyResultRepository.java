@@ -1,7 +1,14 @@
 package com.onnorokom.okr.repository;
 
 import com.onnorokom.okr.model.KeyResult;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.List;
 
@@ -12,5 +19,23 @@ public interface KeyResultRepository extends JpaRepository<KeyResult, UUID> {
 
     List<KeyResult> findByOwnerId(UUID ownerId);
 
+    @EntityGraph(attributePaths = { "owner", "objective" })
+    List<KeyResult> findByObjectiveSheetIdOrderBySortOrderAsc(UUID sheetId);
+
+    /**
+     * Loads the KR with a row lock, so concurrent updates read each other's progress before
+     * computing the rollup delta.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select k from KeyResult k where k.id = :id")
+    Optional<KeyResult> findForUpdateById(@Param("id") UUID id);
+
     void deleteByObjectiveId(UUID objectiveId);
+
+    @Query("select k from KeyResult k join fetch k.objective o join fetch o.sheet where k.id in :ids")
+    List<KeyResult> findWithObjectiveByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query("select k.id as id, k.objective.id as parentId, k.computedProgress as computedProgress"
+            + " from KeyResult k where k.objective.id in :objectiveIds")
+    List<RollupRow> findRollupRowsByObjectiveIdIn(@Param("objectiveIds") Collection<UUID> objectiveIds);
 }
@@ -2,6 +2,10 @@ package com.onnorokom.okr.repository;
 
 import com.onnorokom.okr.model.Objective;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.UUID;
 import java.util.List;
 
@@ -10,7 +14,51 @@ public interface ObjectiveRepository extends JpaRepository<Objective, UUID> {
 
     List<Objective> findBySheetId(UUID sheetId);
 
+    List<Objective> findBySheetIdIn(Collection<UUID> sheetIds);
+
     List<Objective> findByOwnerId(UUID ownerId);
 
     void deleteBySheetId(UUID sheetId);
+
+    /**
+     * First {@code limit} objectives (by sort order) of every given sheet, in one round trip.
+     * Used for dashboard card previews.
+     */
+    @Query(value = "SELECT ranked.* FROM ("
+            + " SELECT o.*, ROW_NUMBER() OVER (PARTITION BY o.sheet_id ORDER BY o.sort_order) AS preview_rank"
+            + " FROM objectives o WHERE o.sheet_id IN (:sheetIds)) ranked"
+            + " WHERE ranked.preview_rank <= :limit"
+            + " ORDER BY ranked.sheet_id, ranked.sort_order", nativeQuery = true)
+    List<Objective> findPreviewsBySheetIdIn(@Param("sheetIds") Collection<UUID> sheetIds, @Param("limit") int limit);
+
+    /**
+     * Applies a key-result delta to the objective's running aggregates and carries the resulting
+     * change in objective progress into the sheet's aggregates, in a single statement.
+     */
+    @Modifying
+    @Query(value = "WITH obj AS ("
+            + " UPDATE objectives SET kr_progress_sum = kr_progress_sum + :progressDelta,"
+            + " kr_count = kr_count + :countDelta,"
+            + " computed_progress = CASE WHEN kr_count + :countDelta > 0"
+            + " THEN (kr_progress_sum + :progressDelta) / (kr_count + :countDelta) ELSE 0 END"
+            + " WHERE id = :id"
+            + " RETURNING sheet_id, computed_progress AS new_progress,"
+            + " CASE WHEN kr_count - :countDelta > 0"
+            + " THEN (kr_progress_sum - :progressDelta) / (kr_count - :countDelta) ELSE 0 END AS old_progress)"
+            + " UPDATE okr_sheets s SET"
+            + " objective_progress_sum = s.objective_progress_sum + (obj.new_progress - obj.old_progress),"
+            + " computed_overall_progress = CASE WHEN s.objective_count > 0"
+            + " THEN (s.objective_progress_sum + (obj.new_progress - obj.old_progress)) / s.objective_count ELSE 0 END"
+            + " FROM obj WHERE s.id = obj.sheet_id", nativeQuery = true)
+    int applyKeyResultDelta(@Param("id") UUID objectiveId, @Param("progressDelta") double progressDelta,
+            @Param("countDelta") int countDelta);
+
+    @Modifying
+    @Query("update Objective o set o.krProgressSum = :sum, o.krCount = :count, o.computedProgress = :progress where o.id = :id")
+    int overwriteAggregates(@Param("id") UUID id, @Param("sum") double sum, @Param("count") int count,
+            @Param("progress") double progress);
+
+    @Query("select o.id as id, o.sheet.id as parentId, o.computedProgress as computedProgress,"
+            + " o.krProgressSum as progressSum, o.krCount as childCount from Objective o where o.sheet.id in :sheetIds")
+    List<RollupRow> findRollupRowsBySheetIdIn(@Param("sheetIds") Collection<UUID> sheetIds);
 }
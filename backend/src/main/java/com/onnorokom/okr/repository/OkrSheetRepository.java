@@ -2,8 +2,13 @@ package com.onnorokom.okr.repository;
 
 import com.onnorokom.okr.model.OkrSheet;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.UUID;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface OkrSheetRepository extends JpaRepository<OkrSheet, UUID> {
     List<OkrSheet> findByCycleId(UUID cycleId);
@@ -12,9 +17,81 @@ public interface OkrSheetRepository extends JpaRepository<OkrSheet, UUID> {
 
     List<OkrSheet> findByCycleIdAndScopeTypeAndScopeId(UUID cycleId, String scopeType, UUID scopeId);
 
-    List<OkrSheet> findByCycleIdAndScopeIdIn(UUID cycleId, List<UUID> scopeIds);
+    List<OkrSheet> findByCycleIdAndScopeIdIn(UUID cycleId, Collection<UUID> scopeIds);
+
+    /**
+     * Sheets of the cycle and scope type whose scope is {@code ancestorId} or anywhere below it in
+     * the org closure: one primary-key range on org_closure joined to uq_okr_sheets_cycle_scope.
+     */
+    @Query(value = "SELECT s.* FROM okr_sheets s JOIN org_closure c ON c.descendant_id = s.scope_id"
+            + " WHERE c.ancestor_id = :ancestorId AND s.cycle_id = :cycleId AND s.scope_type = :scopeType",
+            nativeQuery = true)
+    List<OkrSheet> findByCycleIdAndScopeTypeUnderScope(@Param("cycleId") UUID cycleId,
+            @Param("scopeType") String scopeType, @Param("ancestorId") UUID ancestorId);
+
+    /**
+     * Sheets of the cycle whose scope is one of {@code scopeIds} or anywhere under one of
+     * {@code ancestorIds} in the org closure. Both collections must be non-empty.
+     */
+    @Query(value = "SELECT s.* FROM okr_sheets s WHERE s.cycle_id = :cycleId AND (s.scope_id IN (:scopeIds)"
+            + " OR s.scope_id IN (SELECT c.descendant_id FROM org_closure c WHERE c.ancestor_id IN (:ancestorIds)))",
+            nativeQuery = true)
+    List<OkrSheet> findByCycleIdUnderScopes(@Param("cycleId") UUID cycleId, @Param("ancestorIds") Collection<UUID> ancestorIds,
+            @Param("scopeIds") Collection<UUID> scopeIds);
 
     void deleteByScopeTypeAndScopeId(String scopeType, UUID scopeId);
 
     void deleteByCycleId(UUID cycleId);
+
+    @Modifying
+    @Query("update OkrSheet s set s.version = s.version + 1 where s.id = :id")
+    int incrementVersion(@Param("id") UUID id);
+
+    @Modifying
+    @Query("update OkrSheet s set s.objectiveProgressSum = s.objectiveProgressSum + :progressDelta,"
+            + " s.objectiveCount = s.objectiveCount + :countDelta,"
+            + " s.computedOverallProgress = case when s.objectiveCount + :countDelta > 0"
+            + " then (s.objectiveProgressSum + :progressDelta) / (s.objectiveCount + :countDelta) else 0.0 end"
+            + " where s.id = :id")
+    int applyObjectiveDelta(@Param("id") UUID id, @Param("progressDelta") double progressDelta,
+            @Param("countDelta") int countDelta);
+
+    @Modifying
+    @Query("update OkrSheet s set s.objectiveProgressSum = :sum, s.objectiveCount = :count,"
+            + " s.computedOverallProgress = :progress where s.id = :id")
+    int overwriteAggregates(@Param("id") UUID id, @Param("sum") double sum, @Param("count") int count,
+            @Param("progress") double progress);
+
+    @Query("select s.id as id, s.cycle.id as parentId, s.computedOverallProgress as computedProgress,"
+            + " s.objectiveProgressSum as progressSum, s.objectiveCount as childCount from OkrSheet s where s.id in :ids")
+    List<RollupRow> findRollupRowsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query("select s.id from OkrSheet s where s.cycle.id = :cycleId")
+    List<UUID> findIdsByCycleId(@Param("cycleId") UUID cycleId);
+
+    @Query("select s.version from OkrSheet s where s.id = :id")
+    Optional<Long> findVersionById(@Param("id") UUID id);
+
+    /**
+     * Validator of a cycle's sheets: the id digest changes when a sheet is deleted and another
+     * created, which leaves count and version sum as they were. The pending digest covers async
+     * rollup writes whose version bump has not landed yet.
+     */
+    @Query(value = "SELECT count(*) AS sheetCount, coalesce(sum(s.version), 0) AS versionSum,"
+            + " md5(coalesce(string_agg(s.id::text, ',' ORDER BY s.id), '')) AS idDigest,"
+            + " md5(coalesce(string_agg(s.id::text || '@' || p.marked_at::text, ',' ORDER BY s.id)"
+            + " FILTER (WHERE p.sheet_id IS NOT NULL), '')) AS pendingDigest"
+            + " FROM okr_sheets s LEFT JOIN rollup_pending p ON p.sheet_id = s.id"
+            + " WHERE s.cycle_id = :cycleId", nativeQuery = true)
+    CycleVersion findCycleVersion(@Param("cycleId") UUID cycleId);
+
+    interface CycleVersion {
+        long getSheetCount();
+
+        long getVersionSum();
+
+        String getIdDigest();
+
+        String getPendingDigest();
+    }
 }
@@ -0,0 +1,42 @@
+package com.onnorokom.okr.repository;
+
+import com.onnorokom.okr.model.OrgClosure;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
+import java.util.UUID;
+
+public interface OrgClosureRepository extends JpaRepository<OrgClosure, OrgClosure.Key> {
+
+    // --- Maintenance, called by AdminServiceImpl ---
+
+    @Modifying
+    @Query(value = "INSERT INTO org_closure (ancestor_id, ancestor_type, descendant_id, descendant_type, depth)"
+            + " VALUES (:id, :type, :id, :type, 0) ON CONFLICT DO NOTHING", nativeQuery = true)
+    void insertNode(@Param("id") UUID id, @Param("type") String type);
+
+    /**
+     * Links a node to {@code parentId} and all of its ancestors. The node must have no
+     * descendants yet (new nodes and users); existing links are kept.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO org_closure (ancestor_id, ancestor_type, descendant_id, descendant_type, depth)"
+            + " SELECT a.ancestor_id, a.ancestor_type, n.descendant_id, n.descendant_type, a.depth + 1"
+            + " FROM org_closure a, org_closure n"
+            + " WHERE a.descendant_id = :parentId AND n.ancestor_id = :id AND n.descendant_id = :id"
+            + " ON CONFLICT DO NOTHING", nativeQuery = true)
+    void attach(@Param("id") UUID id, @Param("parentId") UUID parentId);
+
+    /**
+     * Unlinks leaf nodes (users) from all of their ancestors, keeping the nodes themselves.
+     */
+    @Modifying
+    @Query("delete from OrgClosure c where c.descendantId in :ids and c.depth > 0")
+    void detach(@Param("ids") Collection<UUID> ids);
+
+    @Modifying
+    @Query("delete from OrgClosure c where c.ancestorId = :id or c.descendantId = :id")
+    void deleteNode(@Param("id") UUID id);
+}
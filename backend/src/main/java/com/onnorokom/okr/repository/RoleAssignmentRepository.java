@@ -2,6 +2,8 @@ package com.onnorokom.okr.repository;
 
 import com.onnorokom.okr.model.RoleAssignment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.UUID;
 import java.util.List;
 
@@ -11,4 +13,7 @@ public interface RoleAssignmentRepository extends JpaRepository<RoleAssignment,
     void deleteByUserId(UUID userId);
 
     void deleteByScopeTypeAndScopeId(String scopeType, UUID scopeId);
+
+    @Query("select distinct r.user.id from RoleAssignment r where r.scopeType = :scopeType and r.scopeId = :scopeId")
+    List<UUID> findUserIdsByScope(@Param("scopeType") String scopeType, @Param("scopeId") UUID scopeId);
 }
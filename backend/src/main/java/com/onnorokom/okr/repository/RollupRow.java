@@ -0,0 +1,19 @@
+package com.onnorokom.okr.repository;
+
+import java.util.UUID;
+
+/**
+ * Scalar projection used to verify stored progress aggregates. Read as scalars so the values
+ * always come from the database, not from entities cached in the persistence context.
+ */
+public interface RollupRow {
+    UUID getId();
+
+    UUID getParentId();
+
+    Double getComputedProgress();
+
+    Double getProgressSum(); // null for key results
+
+    Integer getChildCount(); // null for key results
+}
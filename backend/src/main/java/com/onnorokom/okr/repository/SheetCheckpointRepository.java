@@ -0,0 +1,28 @@
+package com.onnorokom.okr.repository;
+
+import com.onnorokom.okr.model.SheetCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface SheetCheckpointRepository extends JpaRepository<SheetCheckpoint, UUID> {
+
+    Optional<SheetCheckpoint> findFirstBySheetIdAndTakenAtLessThanEqualOrderByTakenAtDesc(UUID sheetId, Instant at);
+
+    // Versions only grow, so the highest one belongs to the latest checkpoint
+    @Query("select c.sheetId as id, max(c.sheetVersion) as version from SheetCheckpoint c"
+            + " where c.sheetId in :sheetIds group by c.sheetId")
+    List<CheckpointVersion> findLatestVersions(@Param("sheetIds") Collection<UUID> sheetIds);
+
+    interface CheckpointVersion {
+        UUID getId();
+
+        long getVersion();
+    }
+}
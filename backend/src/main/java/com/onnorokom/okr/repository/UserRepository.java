@@ -1,13 +1,36 @@
 package com.onnorokom.okr.repository;
 
 import com.onnorokom.okr.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByEmail(String email);
+
+    @EntityGraph(attributePaths = { "team", "department" })
+    Optional<User> findWithTeamAndDepartmentById(UUID id);
+
     List<User> findByDepartmentId(UUID departmentId);
     List<User> findByTeamId(UUID teamId);
+    List<User> findByDepartmentIdIn(Collection<UUID> departmentIds);
+    List<User> findByDepartmentIdAndIdNotAndEmailGreaterThanOrderByEmailAsc(UUID departmentId, UUID excludedUserId,
+            String afterEmail, Pageable pageable);
+
+    /**
+     * Current security version of an active user; empty if the user is gone or blocked.
+     */
+    @Query("select u.securityVersion from User u where u.id = :id and (u.isBlocked is null or u.isBlocked = false)")
+    Optional<Long> findActiveSecurityVersion(@Param("id") UUID id);
+
+    @Modifying
+    @Query("update User u set u.securityVersion = u.securityVersion + 1 where u.id in :ids")
+    int bumpSecurityVersion(@Param("ids") Collection<UUID> ids);
 }
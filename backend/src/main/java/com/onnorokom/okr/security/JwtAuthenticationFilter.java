@@ -1,5 +1,9 @@
 package com.onnorokom.okr.security;
 
+import com.onnorokom.okr.model.User;
+import com.onnorokom.okr.repository.UserRepository;
+import com.onnorokom.okr.service.impl.AclIndex;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,12 +13,13 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.UUID;
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
@@ -22,7 +27,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private JwtTokenProvider tokenProvider;
 
     @Autowired
-    private CustomUserDetailsService customUserDetailsService;
+    private UserRepository userRepository;
+
+    @Autowired
+    private AclIndex aclIndex;
+
+    @Autowired
+    private SecurityVersionCache securityVersionCache;
 
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
@@ -32,15 +43,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String email = tokenProvider.getEmailFromJWT(jwt);
-
-                UserDetails userDetails = customUserDetailsService.loadUserByUsername(email);
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+            Claims claims = StringUtils.hasText(jwt) ? tokenProvider.parseClaims(jwt) : null;
+            if (claims != null) {
+                UsernamePasswordAuthenticationToken authentication = authenticate(claims);
+                if (authentication != null) {
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception ex) {
             logger.error("Could not set user authentication in security context", ex);
@@ -49,6 +58,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Tokens carrying a user id and security version are trusted as long as the version is current,
+     * which is usually a cache hit. Tokens issued before those claims existed are resolved through
+     * one user lookup. Either way the principal's team, department and roles come from the ACL index.
+     */
+    private UsernamePasswordAuthenticationToken authenticate(Claims claims) {
+        String userId = claims.get(JwtTokenProvider.CLAIM_USER_ID, String.class);
+        Number version = claims.get(JwtTokenProvider.CLAIM_SECURITY_VERSION, Number.class);
+
+        UUID id;
+        if (userId == null || version == null) {
+            User user = userRepository.findByEmail(claims.getSubject()).orElse(null);
+            if (user == null || Boolean.TRUE.equals(user.getIsBlocked())) {
+                return null;
+            }
+            id = user.getId();
+        } else {
+            id = UUID.fromString(userId);
+            if (!securityVersionCache.isCurrent(id, version.longValue())) {
+                return null; // Revoked: blocked, deleted or roles changed since the token was issued
+            }
+        }
+        UserPrincipal principal = new UserPrincipal(id, claims.getSubject(), aclIndex.membership(id));
+        return new UsernamePasswordAuthenticationToken(principal, null, Collections.emptyList());
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
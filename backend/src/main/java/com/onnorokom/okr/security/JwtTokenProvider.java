@@ -1,57 +1,179 @@
 package com.onnorokom.okr.security;
 
+import com.onnorokom.okr.model.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.nio.charset.StandardCharsets;
 
+/**
+ * Issues and verifies JWTs.
+ *
+ * The HMAC key and the parser are built once at startup. Verified tokens are remembered in a
+ * {@link ConcurrentHashMap} keyed by the token's SHA-256 digest until the token expires, so a
+ * client sending the same token on every request pays for the HS512 verification once. Eviction is
+ * approximate: when an insert takes the map past {@code app.jwtVerifyCacheMaxEntries}, one thread
+ * drops expired entries and, if that is not enough, arbitrary ones down to 90% of the limit.
+ * {@code app.jwtVerifyCacheEnabled=false} verifies every request, timed under {@code cache=off},
+ * to compare against the cached path.
+ */
 @Component
 public class JwtTokenProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenProvider.class);
 
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_SECURITY_VERSION = "sv";
+
     @Value("${app.jwtSecret}")
     private String jwtSecret;
 
     @Value("${app.jwtExpirationInMs}")
     private int jwtExpirationInMs;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    @Value("${app.jwtVerifyCacheEnabled:true}")
+    private boolean verifyCacheEnabled;
+
+    @Value("${app.jwtVerifyCacheMaxEntries:10000}")
+    private int verifyCacheMaxEntries;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Key signingKey;
+    private JwtParser parser;
+    private final ConcurrentHashMap<String, Verified> verified = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private Timer verifyHit;
+    private Timer verifyMiss;
+    private Timer verifyUncached;
+
+    private record Verified(Claims claims, long expiresAtMillis) {
+    }
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+
+        verifyHit = Timer.builder("okr.auth.verify").tag("cache", "hit")
+                .description("Time to verify a bearer token and extract its claims")
+                .register(meterRegistry);
+        verifyMiss = Timer.builder("okr.auth.verify").tag("cache", "miss")
+                .description("Time to verify a bearer token and extract its claims")
+                .register(meterRegistry);
+        verifyUncached = Timer.builder("okr.auth.verify").tag("cache", "off")
+                .description("Time to verify a bearer token and extract its claims")
+                .register(meterRegistry);
+        Gauge.builder("okr.auth.verify.cache.size", verified, Map::size).register(meterRegistry);
     }
 
-    public String generateToken(String email) {
+    public String generateToken(User user) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
 
         return Jwts.builder()
-                .setSubject(email)
+                .setSubject(user.getEmail())
+                .claim(CLAIM_USER_ID, user.getId().toString())
+                .claim(CLAIM_SECURITY_VERSION, user.getSecurityVersion() != null ? user.getSecurityVersion() : 0L)
                 .setIssuedAt(new Date())
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
     public String getEmailFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.getSubject();
+        Claims claims = parseClaims(token);
+        return claims != null ? claims.getSubject() : null;
     }
 
     public boolean validateToken(String authToken) {
+        return parseClaims(authToken) != null;
+    }
+
+    /**
+     * Verifies the token and returns its claims, or null if it is invalid or expired. The returned
+     * claims may be shared between requests and must not be modified.
+     */
+    public Claims parseClaims(String authToken) {
+        if (authToken == null || authToken.isEmpty()) {
+            logger.error("JWT claims string is empty.");
+            return null;
+        }
+        long started = System.nanoTime();
+        if (!verifyCacheEnabled) {
+            Claims claims = verify(authToken);
+            verifyUncached.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            return claims;
+        }
+
+        String digest = digest(authToken);
+        Verified hit = verified.get(digest);
+        if (hit != null && hit.expiresAtMillis() <= System.currentTimeMillis()) {
+            verified.remove(digest, hit);
+            hit = null;
+        }
+        if (hit != null) {
+            verifyHit.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            return hit.claims();
+        }
+
+        Claims claims = verify(authToken);
+        if (claims != null && claims.getExpiration() != null) {
+            verified.put(digest, new Verified(claims, claims.getExpiration().getTime()));
+            if (verified.size() > verifyCacheMaxEntries) {
+                evict();
+            }
+        }
+        verifyMiss.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return claims;
+    }
+
+    /**
+     * Drops expired entries, then arbitrary ones until the map is at 90% of its limit. Only one
+     * thread evicts at a time; the others carry on without waiting.
+     */
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
         try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(authToken);
-            return true;
+            long now = System.currentTimeMillis();
+            verified.values().removeIf(v -> v.expiresAtMillis() <= now);
+            int excess = verified.size() - verifyCacheMaxEntries * 9 / 10;
+            Iterator<String> keys = verified.keySet().iterator();
+            while (excess-- > 0 && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private Claims verify(String authToken) {
+        try {
+            return parser.parseClaimsJws(authToken).getBody();
         } catch (SecurityException ex) {
             logger.error("Invalid JWT signature");
         } catch (MalformedJwtException ex) {
@@ -62,7 +184,18 @@ public class JwtTokenProvider {
             logger.error("Unsupported JWT token");
         } catch (IllegalArgumentException ex) {
             logger.error("JWT claims string is empty.");
+        } catch (JwtException ex) {
+            logger.error("Invalid JWT: {}", ex.getMessage());
+        }
+        return null;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
-        return false;
     }
 }
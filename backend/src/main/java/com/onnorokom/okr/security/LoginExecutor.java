@@ -0,0 +1,94 @@
+package com.onnorokom.okr.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs password verification (BCrypt) on a small dedicated pool with a bounded queue.
+ *
+ * Login requests are handled asynchronously, so a burst of logins occupies at most
+ * {@code app.loginThreads} CPU-bound threads and {@code app.loginQueueCapacity} queued tasks
+ * instead of every servlet worker. Once the queue is full, {@link #submit} refuses immediately.
+ */
+@Component
+public class LoginExecutor {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.loginThreads:0}")
+    private int threads; // 0 = one per available processor
+
+    @Value("${app.loginQueueCapacity:100}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+    private Timer latency;
+    private Counter rejected;
+
+    @PostConstruct
+    void start() {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "login-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        latency = Timer.builder("okr.auth.login.latency")
+                .description("Time from accepting a login to finishing password verification, queueing included")
+                .register(meterRegistry);
+        rejected = Counter.builder("okr.auth.login.throttled").tag("by", "saturated")
+                .description("Login attempts refused by the per-account or per-IP rate limit")
+                .register(meterRegistry);
+        Gauge.builder("okr.auth.login.queue.depth", executor, e -> e.getQueue().size())
+                .description("Logins waiting for a verification thread")
+                .register(meterRegistry);
+        Gauge.builder("okr.auth.login.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Logins being verified")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues the task; throws {@link RejectedExecutionException} if the pool and queue are full.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long accepted = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return task.get();
+                } finally {
+                    latency.record(System.nanoTime() - accepted, TimeUnit.NANOSECONDS);
+                }
+            }, executor);
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.onnorokom.okr.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token-bucket limits on login attempts per account and per client IP.
+ *
+ * Each normalised email and each IP has its own bucket, so one account never throttles another.
+ * A bucket that has refilled completely is the same as a new one, so buckets are dropped once
+ * full again; that keeps the maps sized to the keys seen within the last refill period. If a map
+ * still holds {@code app.loginThrottleMaxKeys} busy buckets, attempts for keys it does not know
+ * yet are refused until buckets expire, so memory stays bounded however many emails are tried.
+ * Each bucket is one long (last refill time and milli-tokens) updated with compare-and-set, so
+ * there are no locks on the login path. A per-IP burst or rate of 0 disables the IP limit, e.g.
+ * when every client arrives through one NAT address.
+ */
+@Component
+public class LoginThrottle {
+
+    private static final int TOKEN_BITS = 20; // milli-tokens, so at most ~1000 tokens per bucket
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long ONE = 1000;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.loginThrottleMaxKeys:100000}")
+    private int maxKeys;
+
+    @Value("${app.loginPerAccountBurst:5}")
+    private int accountBurst;
+
+    @Value("${app.loginPerAccountPerMinute:5}")
+    private int accountPerMinute;
+
+    @Value("${app.loginPerIpBurst:30}")
+    private int ipBurst;
+
+    @Value("${app.loginPerIpPerMinute:60}")
+    private int ipPerMinute;
+
+    private final long started = System.nanoTime();
+
+    private Buckets accounts;
+    private Buckets ips; // null when the IP limit is disabled
+
+    private Counter accountThrottled;
+    private Counter ipThrottled;
+
+    @PostConstruct
+    void init() {
+        accounts = new Buckets(accountBurst, accountPerMinute);
+        ips = ipBurst > 0 && ipPerMinute > 0 ? new Buckets(ipBurst, ipPerMinute) : null;
+        accountThrottled = Counter.builder("okr.auth.login.throttled").tag("by", "account")
+                .description("Login attempts refused by the per-account or per-IP rate limit")
+                .register(meterRegistry);
+        ipThrottled = Counter.builder("okr.auth.login.throttled").tag("by", "ip")
+                .description("Login attempts refused by the per-account or per-IP rate limit")
+                .register(meterRegistry);
+        Gauge.builder("okr.auth.login.throttle.keys", this, t -> t.accounts.size() + (t.ips != null ? t.ips.size() : 0))
+                .description("Account and IP buckets currently held")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes one token from the IP's and the account's bucket; false if either is empty.
+     */
+    public boolean tryAcquire(String email, String ip) {
+        if (ips != null && !ips.take(ip == null ? "" : ip)) {
+            ipThrottled.increment();
+            return false;
+        }
+        if (!accounts.take(email == null ? "" : email.trim().toLowerCase(Locale.ROOT))) {
+            accountThrottled.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private long nowMillis() {
+        return (System.nanoTime() - started) / 1_000_000;
+    }
+
+    private final class Buckets {
+        private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+        private final AtomicBoolean sweeping = new AtomicBoolean();
+        private final long capacity;
+        private final int perMinute;
+
+        Buckets(int burst, int perMinute) {
+            this.capacity = Math.min(burst * ONE, TOKEN_MASK);
+            this.perMinute = perMinute;
+        }
+
+        int size() {
+            return buckets.size();
+        }
+
+        boolean take(String key) {
+            AtomicLong bucket = buckets.get(key);
+            if (bucket == null) {
+                if (buckets.size() >= maxKeys) {
+                    sweep();
+                    if (buckets.size() >= maxKeys) {
+                        return false; // Only busy buckets left: refuse unknown keys until some expire
+                    }
+                }
+                bucket = buckets.computeIfAbsent(key, k -> new AtomicLong((nowMillis() << TOKEN_BITS) | capacity));
+            }
+            while (true) {
+                long now = nowMillis();
+                long state = bucket.get();
+                long tokens = tokens(state, now);
+                if (tokens < ONE) {
+                    return false;
+                }
+                if (bucket.compareAndSet(state, (now << TOKEN_BITS) | (tokens - ONE))) {
+                    return true;
+                }
+            }
+        }
+
+        private long tokens(long state, long now) {
+            long elapsed = now - (state >>> TOKEN_BITS);
+            // perMinute tokens per 60 000 ms == perMinute / 60 milli-tokens per ms
+            return Math.min(capacity, (state & TOKEN_MASK) + elapsed * perMinute / 60);
+        }
+
+        /**
+         * Drops every bucket that has refilled completely. One sweep at a time; callers that find
+         * one running just see the map as it is.
+         */
+        private void sweep() {
+            if (!sweeping.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                long now = nowMillis();
+                buckets.values().removeIf(bucket -> tokens(bucket.get(), now) >= capacity);
+            } finally {
+                sweeping.set(false);
+            }
+        }
+    }
+}
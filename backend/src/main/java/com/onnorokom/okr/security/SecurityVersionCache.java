@@ -0,0 +1,100 @@
+package com.onnorokom.okr.security;
+
+import com.onnorokom.okr.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local cache of each user's current security version, used to revoke tokens without a database
+ * read per request.
+ *
+ * A token is accepted only if its version claim equals the user's current version. Blocking a user
+ * or changing their roles bumps the version and evicts the entry here after commit, so this node
+ * rejects old tokens immediately; other nodes pick the change up once their entry is older than
+ * {@code app.securityVersionCacheTtl}. Entries are kept per user (tombstones included), so the map
+ * is bounded by the number of users.
+ */
+@Component
+public class SecurityVersionCache {
+
+    private static final long INACTIVE = -1; // User deleted or blocked
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final long ttlNanos;
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * {@code generation} counts evictions of the user's entry. An eviction leaves a tombstone with
+     * the next generation rather than removing the entry, so a load that started before it can
+     * tell and does not put its stale version back.
+     */
+    private record Entry(long version, long loadedAt, long generation, boolean loaded) {
+    }
+
+    public SecurityVersionCache(@Value("${app.securityVersionCacheTtl:PT30S}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Whether a token issued at {@code tokenVersion} is still valid for the user.
+     */
+    public boolean isCurrent(UUID userId, long tokenVersion) {
+        Entry entry = entries.get(userId);
+        while (entry == null || !entry.loaded() || System.nanoTime() - entry.loadedAt() > ttlNanos) {
+            long generation = entry != null ? entry.generation() : 0;
+            long now = System.nanoTime();
+            long version = userRepository.findActiveSecurityVersion(userId).orElse(INACTIVE);
+            Entry loaded = new Entry(version, now, generation, true);
+            // Installed only if no eviction happened since the read; otherwise load again
+            entry = entries.compute(userId, (id, current) ->
+                    (current != null ? current.generation() : 0) == generation ? loaded : current);
+            if (entry == loaded) {
+                break;
+            }
+        }
+        return entry.version() != INACTIVE && entry.version() == tokenVersion;
+    }
+
+    /**
+     * Bumps the users' security versions, revoking every token issued to them so far. The local
+     * entries are dropped once the surrounding transaction commits.
+     */
+    public void revoke(Collection<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        userRepository.bumpSecurityVersion(userIds);
+        evictAfterCommit(userIds);
+    }
+
+    public void evictAfterCommit(Collection<UUID> userIds) {
+        List<UUID> ids = List.copyOf(userIds);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            ids.forEach(this::evict);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ids.forEach(SecurityVersionCache.this::evict);
+            }
+        });
+    }
+
+    private void evict(UUID userId) {
+        entries.compute(userId, (id, current) ->
+                new Entry(INACTIVE, 0, current != null ? current.generation() + 1 : 1, false));
+    }
+}
@@ -0,0 +1,84 @@
+package com.onnorokom.okr.security;
+
+import com.onnorokom.okr.service.impl.AclIndex;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The authenticated caller, resolved once per request by {@link JwtAuthenticationFilter}: id and
+ * email from the token, team, department and roles from the in-memory {@link AclIndex}.
+ * Controllers receive it as a handler argument (see {@link CurrentUserArgumentResolver}) and pass
+ * it to the services, so no handler has to load the user again. {@link #getName()} is the email.
+ */
+public class UserPrincipal implements AuthenticatedPrincipal {
+
+    private final UUID id;
+    private final String email;
+    private final UUID teamId;
+    private final UUID departmentId;
+    private final List<AclIndex.Role> roles;
+
+    public UserPrincipal(UUID id, String email, AclIndex.Membership membership) {
+        this.id = id;
+        this.email = email;
+        this.teamId = membership.teamId();
+        this.departmentId = membership.departmentId();
+        this.roles = membership.roles();
+    }
+
+    /**
+     * The principal of the current request, or null if the request is not authenticated.
+     */
+    public static UserPrincipal current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal;
+        }
+        return null;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public UUID getTeamId() {
+        return teamId;
+    }
+
+    public UUID getDepartmentId() {
+        return departmentId;
+    }
+
+    public List<AclIndex.Role> getRoles() {
+        return roles;
+    }
+
+    public boolean hasRole(String role) {
+        return roles.stream().anyMatch(r -> role.equals(r.role()));
+    }
+
+    /**
+     * SUPER_ADMIN or ORG_LEADERSHIP, who see the whole organisation.
+     */
+    public boolean seesOrganisation() {
+        return hasRole("SUPER_ADMIN") || hasRole("ORG_LEADERSHIP");
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    @Override
+    public String toString() {
+        return email;
+    }
+}
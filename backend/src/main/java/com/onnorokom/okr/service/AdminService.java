@@ -11,17 +11,17 @@ public interface AdminService {
 
     UserDto blockUser(UUID userId, boolean blocked);
 
-    void deleteUser(UUID userId);
+    DeletionReportDto deleteUser(UUID userId, boolean dryRun);
 
     List<TeamDto> getAllTeams();
 
     TeamDto createTeam(CreateTeamRequest request);
 
-    void deleteTeam(UUID teamId);
+    DeletionReportDto deleteTeam(UUID teamId, boolean dryRun);
 
     List<DepartmentDto> getAllDepartments();
 
     DepartmentDto createDepartment(CreateDepartmentRequest request);
 
-    void deleteDepartment(UUID departmentId);
+    DeletionReportDto deleteDepartment(UUID departmentId, boolean dryRun);
 }
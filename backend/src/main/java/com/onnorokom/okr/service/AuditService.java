@@ -1,8 +1,39 @@
 package com.onnorokom.okr.service;
 
+import com.onnorokom.okr.dto.AuditPageDto;
+import com.onnorokom.okr.model.AuditLog;
 import com.onnorokom.okr.model.User;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
+/**
+ * Records field-level changes. Entries are buffered per transaction and written in batches before
+ * commit; see {@code app.auditMode} for whether they go to audit_log directly or via the outbox.
+ */
 public interface AuditService {
     void logChange(User actor, String entityType, UUID entityId, String fieldName, String oldValue, String newValue);
+
+    /**
+     * Records several entries at once.
+     */
+    void logChanges(List<AuditLog> entries);
+
+    /**
+     * Pages through the audit history, newest first. All filters are optional; {@code cursor} is
+     * the {@code nextCursor} of the previous page. Archived months are only searched with
+     * {@code includeArchived}, once the live partitions are exhausted.
+     */
+    AuditPageDto findEntries(String entityType, UUID entityId, UUID actorId, Instant from, Instant to, String cursor,
+            int limit, boolean includeArchived);
+
+    /**
+     * Streams the matching entries, oldest first, as {@code csv} or {@code ndjson}, optionally
+     * gzip'd. {@code cycleId} limits the export to the cycle's date window. Memory use does not
+     * depend on the number of rows.
+     */
+    void exportEntries(String format, UUID cycleId, String entityType, UUID actorId, boolean gzip, OutputStream out)
+            throws IOException;
 }
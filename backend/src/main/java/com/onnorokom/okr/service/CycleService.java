@@ -8,13 +8,24 @@ public interface CycleService {
 
     double calculateTimeProgress(Cycle cycle);
 
+    double calculateTimeProgress(Cycle cycle, java.time.LocalDate asOf);
+
     long calculateDaysRemaining(Cycle cycle);
 
+    long calculateDaysRemaining(Cycle cycle, java.time.LocalDate asOf);
+
     long calculateTotalDays(Cycle cycle);
 
     java.util.List<com.onnorokom.okr.dto.CycleDto> getAllCycles();
 
     com.onnorokom.okr.dto.CycleDto createCycle(com.onnorokom.okr.dto.CreateCycleRequest request);
 
-    void deleteCycle(java.util.UUID cycleId);
+    /**
+     * Copies sheets of another cycle, with their objectives and key results, into this cycle.
+     * Safe to repeat: rows copied before are skipped. The copies are audited as created by the actor.
+     */
+    com.onnorokom.okr.dto.CycleRolloverDto rollover(java.util.UUID targetCycleId,
+            com.onnorokom.okr.dto.CycleRolloverRequest request, java.util.UUID actorId);
+
+    com.onnorokom.okr.dto.DeletionReportDto deleteCycle(java.util.UUID cycleId, boolean dryRun);
 }
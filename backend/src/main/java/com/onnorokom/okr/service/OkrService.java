@@ -1,25 +1,63 @@
 package com.onnorokom.okr.service;
 
 import com.onnorokom.okr.dto.*;
-import com.onnorokom.okr.model.User;
+import com.onnorokom.okr.security.UserPrincipal;
+import java.util.List;
 import java.util.UUID;
 
 public interface OkrService {
-    DashboardDto getDashboard(User user);
+    DashboardDto getDashboard(UserPrincipal user);
 
-    HierarchicalDashboardDto getHierarchicalDashboard(User user);
+    HierarchicalDashboardDto getHierarchicalDashboard(UserPrincipal user);
 
-    SheetDetailDto getSheetDetails(UUID sheetId);
+    HierarchicalDashboardDto getDashboardTopLevel(UserPrincipal user);
 
-    KeyResultDto updateKeyResult(UUID krId, UpdateKeyResultRequest request, User actor);
+    List<HierarchicalDashboardDto.DepartmentNode> getDashboardDepartments(UserPrincipal user, UUID teamId);
 
-    ObjectiveDto updateObjective(UUID objectiveId, UpdateObjectiveRequest request, User actor);
+    DashboardMemberPageDto getDashboardMembers(UserPrincipal user, UUID departmentId, String afterEmail, int limit);
 
-    ObjectiveDto createObjective(UUID sheetId, CreateObjectiveRequest request, User actor);
+    /**
+     * Summary cards of every active-cycle sheet the user can edit.
+     */
+    List<SheetSummaryDto> getEditableSheets(UserPrincipal user);
 
-    KeyResultDto createKeyResult(UUID objectiveId, CreateKeyResultRequest request, User actor);
+    SheetDetailDto getSheetDetails(UUID sheetId, UserPrincipal user);
 
-    void deleteObjective(UUID objectiveId, User actor);
+    /**
+     * canView/canManage for each requested sheet and key result; unknown ids are left out.
+     */
+    PermissionCheckDto checkPermissions(PermissionCheckRequest request, UserPrincipal actor);
 
-    void deleteKeyResult(UUID krId, User actor);
+    /**
+     * The sheet as it was at {@code at}, rebuilt from the nearest checkpoint; all KRs are read-only.
+     */
+    SheetDetailDto getSheetDetailsAsOf(UUID sheetId, java.time.Instant at);
+
+    /**
+     * Strong ETag for the caller's dashboard; changes whenever any sheet of the active cycle changes.
+     */
+    String getDashboardETag(String principal);
+
+    /**
+     * Strong ETag for the caller's view of a sheet, derived from the sheet version counter.
+     */
+    String getSheetETag(UUID sheetId, String principal);
+
+    KeyResultDto updateKeyResult(UUID krId, UpdateKeyResultRequest request, UserPrincipal actor);
+
+    /**
+     * Applies many KR updates of one sheet in a single transaction with one permission check and
+     * one rollup.
+     */
+    List<KeyResultDto> updateKeyResults(UUID sheetId, List<BulkKeyResultUpdateRequest.Item> updates, UserPrincipal actor);
+
+    ObjectiveDto updateObjective(UUID objectiveId, UpdateObjectiveRequest request, UserPrincipal actor);
+
+    ObjectiveDto createObjective(UUID sheetId, CreateObjectiveRequest request, UserPrincipal actor);
+
+    KeyResultDto createKeyResult(UUID objectiveId, CreateKeyResultRequest request, UserPrincipal actor);
+
+    void deleteObjective(UUID objectiveId, UserPrincipal actor);
+
+    void deleteKeyResult(UUID krId, UserPrincipal actor);
 }
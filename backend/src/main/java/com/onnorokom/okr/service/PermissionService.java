@@ -1,15 +1,44 @@
 package com.onnorokom.okr.service;
 
+import com.onnorokom.okr.dto.AccessDto;
 import com.onnorokom.okr.model.KeyResult;
 import com.onnorokom.okr.model.OkrSheet;
-import com.onnorokom.okr.model.User;
+import com.onnorokom.okr.security.UserPrincipal;
+import com.onnorokom.okr.service.impl.AclIndex;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
 
 public interface PermissionService {
-    boolean canEditSheet(User actor, OkrSheet sheet);
+    boolean canEditSheet(UserPrincipal actor, OkrSheet sheet);
+
+    boolean canEditKeyResult(UserPrincipal actor, KeyResult kr);
+
+    boolean isSuperAdmin(UserPrincipal actor);
+
+    boolean isOrgLeadership(UserPrincipal actor);
+
+    /**
+     * Scopes of the sheets the actor can edit, as subtrees of the org closure plus single scope
+     * ids, or null when the actor can edit every sheet.
+     */
+    AclIndex.EditableScopes editableScopes(UserPrincipal actor);
 
-    boolean canEditKeyResult(User actor, KeyResult kr);
+    /**
+     * Changes whenever roles, memberships or org structure change, i.e. whenever any permission
+     * could have changed. Part of cache validators for per-user responses.
+     */
+    long aclVersion();
 
-    boolean isSuperAdmin(User actor);
+    /**
+     * canView/canManage for each sheet, keyed by sheet id, evaluated in one pass.
+     */
+    Map<UUID, AccessDto> evaluateSheets(UserPrincipal actor, Collection<OkrSheet> sheets);
 
-    boolean isOrgLeadership(User actor);
+    /**
+     * canView/canManage for each key result, keyed by key result id. KR owners can manage their
+     * own KRs; everything else follows the KR's sheet.
+     */
+    Map<UUID, AccessDto> evaluateKeyResults(UserPrincipal actor, Collection<KeyResult> keyResults);
 }
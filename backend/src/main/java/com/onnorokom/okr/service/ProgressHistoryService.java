@@ -0,0 +1,30 @@
+package com.onnorokom.okr.service;
+
+import com.onnorokom.okr.dto.ProgressSeriesDto;
+import com.onnorokom.okr.model.KeyResult;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * KR check-in time series and the downsampled progress trends built from it.
+ */
+public interface ProgressHistoryService {
+
+    /**
+     * Appends one check-in per KR with its current value, progress and confidence.
+     */
+    void recordCheckIns(Collection<KeyResult> keyResults);
+
+    /**
+     * Ends the series of KRs that are about to be deleted, so trends stop counting them from now
+     * on while their earlier check-ins stay.
+     */
+    void recordRemovals(Collection<KeyResult> keyResults);
+
+    ProgressSeriesDto getKeyResultHistory(UUID krId, int points);
+
+    ProgressSeriesDto getObjectiveHistory(UUID objectiveId, int points);
+
+    ProgressSeriesDto getSheetHistory(UUID sheetId, int points);
+}
@@ -0,0 +1,33 @@
+package com.onnorokom.okr.service;
+
+import com.onnorokom.okr.model.User;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface RefreshTokenService {
+
+    /**
+     * Starts a new token family for the user (one per login) and returns the opaque token.
+     */
+    String issue(UUID userId);
+
+    /**
+     * Exchanges a refresh token for its successor. Empty if the token is unknown, expired, revoked or
+     * belongs to a blocked user; reusing a rotated token also revokes the rest of its family.
+     */
+    Optional<Rotation> rotate(String refreshToken);
+
+    /**
+     * Revokes the token's family (logout on one device).
+     */
+    void revoke(String refreshToken);
+
+    /**
+     * Revokes every refresh token of the user (logout everywhere, blocked user).
+     */
+    void revokeAll(UUID userId);
+
+    record Rotation(User user, String refreshToken) {
+    }
+}
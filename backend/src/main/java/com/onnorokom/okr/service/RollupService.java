@@ -0,0 +1,59 @@
+package com.onnorokom.okr.service;
+
+import com.onnorokom.okr.dto.RollupDriftDto;
+import com.onnorokom.okr.model.KeyResult;
+import com.onnorokom.okr.model.Objective;
+import com.onnorokom.okr.model.OkrSheet;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keeps objective and sheet progress up to date by applying deltas to stored running aggregates
+ * (sum of child progress and child count) instead of re-reading sibling rows.
+ */
+public interface RollupService {
+    void keyResultProgressChanged(KeyResult kr, double oldProgress);
+
+    void keyResultAdded(KeyResult kr);
+
+    /**
+     * Rolls up a batch of KR changes on one sheet: each affected objective and the sheet are
+     * recomputed once.
+     */
+    void keyResultsChanged(OkrSheet sheet);
+
+    void keyResultRemoved(Objective objective, double progress);
+
+    void objectiveAdded(Objective objective);
+
+    void objectiveRemoved(OkrSheet sheet, double progress);
+
+    /**
+     * Bumps the sheet version and drops its cached dashboard card.
+     */
+    void sheetChanged(OkrSheet sheet);
+
+    /**
+     * Async mode only: recomputes the sheet now if a rollup for it is still queued, so the caller
+     * reads its own writes. No-op in sync mode.
+     */
+    void flushPending(UUID sheetId);
+
+    /**
+     * Like {@link #flushPending(UUID)} for the sheets a read is about to show; other queued sheets
+     * are left to the worker. Returns the sheets that were recomputed, whose already loaded
+     * entities are stale.
+     */
+    Set<UUID> flushPending(Collection<UUID> sheetIds);
+
+    /**
+     * Recomputes the given sheets from scratch and reports every aggregate that drifted from the
+     * stored value. With {@code repair}, drifted rows are overwritten with the recomputed values.
+     */
+    List<RollupDriftDto> verifySheets(Collection<UUID> sheetIds, boolean repair);
+
+    List<RollupDriftDto> verifyCycle(UUID cycleId, boolean repair);
+}
@@ -0,0 +1,462 @@
+package com.onnorokom.okr.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * In-memory index of which scopes each user can edit and view.
+ *
+ * Mirrors {@code role_assignments}, {@code users.team_id/department_id} and
+ * {@code departments.team_id}. Every scope id (team, department or user) is interned to an int
+ * and each user's editable and viewable scopes are kept as {@link BitSet}s over those ints, so a
+ * permission check is a map lookup and a bit test. A user's {@link Acl} is compiled on first use
+ * and dropped whenever a role or membership change could affect it; {@link AdminServiceImpl}
+ * reports those changes after its transaction commits.
+ *
+ * Every change also bumps the {@code acl_version} row inside its transaction. Each node polls that
+ * row every {@code app.aclVersionCheckInterval} and reloads the whole index when it moved past
+ * the version it has applied, which picks up changes made on other nodes.
+ *
+ * The rules are the ones in {@link PermissionServiceImpl}'s spec: SUPER_ADMIN edits everything,
+ * ORG_LEADERSHIP views everything and edits nothing, everyone else edits their own personal sheet
+ * plus what their TEAM_ADMIN / DEPARTMENT_ADMIN / MEMBER roles grant, and views the company, their
+ * team, their department and whatever they can edit.
+ */
+@Component
+public class AclIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AclIndex.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Interned scope ids; ids of deleted scopes are never reused
+    private final Map<UUID, Integer> scopeIndex = new HashMap<>();
+    private final List<UUID> scopes = new ArrayList<>();
+
+    // Org structure, guarded by lock
+    private final Map<UUID, UUID> departmentTeam = new HashMap<>();
+    private final Map<UUID, Set<UUID>> teamDepartments = new HashMap<>();
+    private final Map<UUID, UUID> userTeam = new HashMap<>();
+    private final Map<UUID, UUID> userDepartment = new HashMap<>();
+    private final Map<UUID, Set<UUID>> members = new HashMap<>(); // teamId or departmentId -> userIds
+    private final Map<UUID, List<Role>> roles = new HashMap<>();
+    private final Map<UUID, Set<UUID>> admins = new HashMap<>(); // scopeId -> users holding an admin role on it
+
+    private final Map<UUID, Acl> acls = new ConcurrentHashMap<>();
+
+    // acl_version the index reflects; written under the write lock
+    private volatile long appliedVersion = -1;
+
+    public record Role(String role, String scopeType, UUID scopeId) {
+    }
+
+    /**
+     * A user's team, department and role assignments as currently indexed.
+     */
+    public record Membership(UUID teamId, UUID departmentId, List<Role> roles) {
+    }
+
+    /**
+     * What a user can edit as SQL can select it: every scope under each of {@code subtrees}
+     * (their TEAM_ADMIN / DEPARTMENT_ADMIN scopes, resolved through org_closure) plus the single
+     * {@code scopeIds} (own personal sheet, own department as MEMBER).
+     */
+    public record EditableScopes(Set<UUID> subtrees, Set<UUID> scopeIds) {
+    }
+
+    /**
+     * One user's compiled permissions. Immutable; replaced rather than updated.
+     */
+    public final class Acl {
+        private final boolean editsAll;
+        private final boolean viewsAll;
+        private final BitSet editable;
+        private final BitSet viewable;
+        private final EditableScopes editableScopes;
+
+        private Acl(boolean editsAll, boolean viewsAll, BitSet editable, BitSet viewable, EditableScopes editableScopes) {
+            this.editsAll = editsAll;
+            this.viewsAll = viewsAll;
+            this.editable = editable;
+            this.viewable = viewable;
+            this.editableScopes = editableScopes;
+        }
+
+        public boolean isSuperAdmin() {
+            return editsAll;
+        }
+
+        public boolean isOrgLeadership() {
+            return viewsAll && !editsAll;
+        }
+
+        public boolean seesOrganisation() {
+            return viewsAll;
+        }
+
+        public boolean canEdit(String scopeType, UUID scopeId) {
+            if (editsAll) {
+                return true;
+            }
+            // Only SUPER_ADMIN edits company sheets
+            return !"COMPANY".equals(scopeType) && test(editable, scopeId);
+        }
+
+        public boolean canView(String scopeType, UUID scopeId) {
+            return viewsAll || "COMPANY".equals(scopeType) || test(viewable, scopeId);
+        }
+
+        /**
+         * Scopes this user can edit as subtrees plus single scopes, or null when they can edit
+         * every scope.
+         */
+        public EditableScopes editableScopes() {
+            return editsAll ? null : editableScopes;
+        }
+
+        /**
+         * Non-company scope ids this user can view, or null when they can view every scope.
+         */
+        public Set<UUID> viewableScopeIds() {
+            return viewsAll ? null : resolve(viewable);
+        }
+    }
+
+    @PostConstruct
+    void load() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            // Read first: a change committing during the load is at worst loaded again next check
+            long version = currentVersion();
+            departmentTeam.clear();
+            teamDepartments.clear();
+            userTeam.clear();
+            userDepartment.clear();
+            members.clear();
+            roles.clear();
+            admins.clear();
+            jdbcTemplate.query("SELECT id, team_id FROM departments", rs -> {
+                putDepartment(rs.getObject("id", UUID.class), rs.getObject("team_id", UUID.class));
+            });
+            jdbcTemplate.query("SELECT id, team_id, department_id FROM users", rs -> {
+                putUser(rs.getObject("id", UUID.class), rs.getObject("team_id", UUID.class),
+                        rs.getObject("department_id", UUID.class));
+            });
+            jdbcTemplate.query("SELECT user_id, role, scope_type, scope_id FROM role_assignments", rs -> {
+                addRole(rs.getObject("user_id", UUID.class), new Role(rs.getString("role"),
+                        rs.getString("scope_type"), rs.getObject("scope_id", UUID.class)));
+            });
+            acls.clear();
+            appliedVersion = version;
+            logger.info("ACL index loaded at version {}: {} users with roles, {} departments in {} ms", version,
+                    roles.size(), departmentTeam.size(), System.currentTimeMillis() - started);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reloads the index when another node changed roles, memberships or org structure.
+     */
+    @Scheduled(initialDelayString = "${app.aclVersionCheckInterval:PT10S}",
+            fixedDelayString = "${app.aclVersionCheckInterval:PT10S}")
+    public void checkVersion() {
+        if (currentVersion() != appliedVersion) {
+            load();
+        }
+    }
+
+    /**
+     * The acl_version this index reflects. Changes whenever a role, membership or org structure
+     * change has been applied.
+     */
+    public long version() {
+        return appliedVersion;
+    }
+
+    private long currentVersion() {
+        return jdbcTemplate.queryForObject("SELECT version FROM acl_version", Long.class);
+    }
+
+    /**
+     * Bumps acl_version in the caller's transaction and returns the new value. The row lock also
+     * serialises concurrent ACL changes, which are admin operations and rare.
+     */
+    private long bumpVersion() {
+        return jdbcTemplate.queryForObject("UPDATE acl_version SET version = version + 1 RETURNING version", Long.class);
+    }
+
+    /**
+     * The user's compiled permissions, compiling them on first use.
+     */
+    public Acl acl(UUID userId) {
+        Acl acl = acls.get(userId);
+        if (acl != null) {
+            return acl;
+        }
+        lock.readLock().lock();
+        try {
+            // Compiled under the read lock, so no change can slip in between compile and put
+            return acls.computeIfAbsent(userId, this::compile);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Membership membership(UUID userId) {
+        lock.readLock().lock();
+        try {
+            return new Membership(userTeam.get(userId), userDepartment.get(userId),
+                    List.copyOf(roles.getOrDefault(userId, List.of())));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- Change notifications, applied once the surrounding transaction commits ---
+
+    /**
+     * A user was created, moved between team/department or had roles changed.
+     */
+    public void userChanged(UUID userId, UUID teamId, UUID departmentId, Collection<Role> userRoles) {
+        long version = bumpVersion();
+        afterCommit(() -> mutate(version, () -> {
+            Set<UUID> affected = affectedByUser(userId);
+            removeUser(userId);
+            putUser(userId, teamId, departmentId);
+            userRoles.forEach(r -> addRole(userId, r));
+            affected.addAll(affectedByUser(userId));
+            return affected;
+        }));
+    }
+
+    public void userRemoved(UUID userId) {
+        long version = bumpVersion();
+        afterCommit(() -> mutate(version, () -> {
+            Set<UUID> affected = affectedByUser(userId);
+            removeUser(userId);
+            return affected;
+        }));
+    }
+
+    public void departmentChanged(UUID departmentId, UUID teamId) {
+        long version = bumpVersion();
+        afterCommit(() -> mutate(version, () -> {
+            Set<UUID> affected = new HashSet<>(admins.getOrDefault(teamId, Set.of()));
+            UUID oldTeam = departmentTeam.get(departmentId);
+            if (oldTeam != null) {
+                affected.addAll(admins.getOrDefault(oldTeam, Set.of()));
+            }
+            removeDepartment(departmentId);
+            putDepartment(departmentId, teamId);
+            return affected;
+        }));
+    }
+
+    /**
+     * An org structure change that no compiled ACL depends on yet, such as a new team. Only moves
+     * the version, so cached dashboards built on the old structure are revalidated.
+     */
+    public void orgChanged() {
+        long version = bumpVersion();
+        afterCommit(() -> mutate(version, Set::of));
+    }
+
+    /**
+     * A team or department was deleted along with its memberships and scoped roles. Rare enough
+     * that the index is reloaded instead of patched.
+     */
+    public void scopeRemoved() {
+        bumpVersion();
+        afterCommit(this::load);
+    }
+
+    /**
+     * Applies a local change. If no other change landed in between, the index now reflects
+     * {@code version}; otherwise the next version check reloads it.
+     */
+    private void mutate(long version, Supplier<Set<UUID>> change) {
+        lock.writeLock().lock();
+        try {
+            change.get().forEach(acls::remove);
+            if (appliedVersion == version - 1) {
+                appliedVersion = version;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // --- Structure maintenance (write lock held) ---
+
+    /**
+     * The user plus every admin whose editable set includes the user's personal scope.
+     */
+    private Set<UUID> affectedByUser(UUID userId) {
+        Set<UUID> affected = new HashSet<>();
+        affected.add(userId);
+        UUID team = userTeam.get(userId);
+        UUID dept = userDepartment.get(userId);
+        if (team != null) {
+            affected.addAll(admins.getOrDefault(team, Set.of()));
+        }
+        if (dept != null) {
+            affected.addAll(admins.getOrDefault(dept, Set.of()));
+        }
+        return affected;
+    }
+
+    private void putDepartment(UUID departmentId, UUID teamId) {
+        departmentTeam.put(departmentId, teamId);
+        teamDepartments.computeIfAbsent(teamId, k -> new HashSet<>()).add(departmentId);
+    }
+
+    private void removeDepartment(UUID departmentId) {
+        UUID team = departmentTeam.remove(departmentId);
+        if (team != null) {
+            teamDepartments.getOrDefault(team, new HashSet<>()).remove(departmentId);
+        }
+    }
+
+    private void putUser(UUID userId, UUID teamId, UUID departmentId) {
+        if (teamId != null) {
+            userTeam.put(userId, teamId);
+            members.computeIfAbsent(teamId, k -> new HashSet<>()).add(userId);
+        }
+        if (departmentId != null) {
+            userDepartment.put(userId, departmentId);
+            members.computeIfAbsent(departmentId, k -> new HashSet<>()).add(userId);
+        }
+    }
+
+    private void removeUser(UUID userId) {
+        UUID team = userTeam.remove(userId);
+        UUID dept = userDepartment.remove(userId);
+        if (team != null) {
+            members.getOrDefault(team, new HashSet<>()).remove(userId);
+        }
+        if (dept != null) {
+            members.getOrDefault(dept, new HashSet<>()).remove(userId);
+        }
+        for (Role role : roles.getOrDefault(userId, List.of())) {
+            if (role.scopeId() != null) {
+                admins.getOrDefault(role.scopeId(), new HashSet<>()).remove(userId);
+            }
+        }
+        roles.remove(userId);
+    }
+
+    private void addRole(UUID userId, Role role) {
+        roles.computeIfAbsent(userId, k -> new ArrayList<>()).add(role);
+        if (("TEAM_ADMIN".equals(role.role()) || "DEPARTMENT_ADMIN".equals(role.role())) && role.scopeId() != null) {
+            admins.computeIfAbsent(role.scopeId(), k -> new HashSet<>()).add(userId);
+        }
+    }
+
+    // --- Compilation (read lock held) ---
+
+    private Acl compile(UUID userId) {
+        List<Role> userRoles = roles.getOrDefault(userId, List.of());
+        boolean superAdmin = userRoles.stream().anyMatch(r -> "SUPER_ADMIN".equals(r.role()));
+        boolean leadership = userRoles.stream().anyMatch(r -> "ORG_LEADERSHIP".equals(r.role()));
+        if (superAdmin || leadership) {
+            return new Acl(superAdmin, true, new BitSet(), new BitSet(), new EditableScopes(Set.of(), Set.of()));
+        }
+
+        BitSet editable = new BitSet();
+        Set<UUID> subtrees = new HashSet<>();
+        Set<UUID> single = new HashSet<>();
+        editable.set(intern(userId)); // own personal sheet
+        single.add(userId);
+        for (Role role : userRoles) {
+            if ("TEAM_ADMIN".equals(role.role()) && "TEAM".equals(role.scopeType()) && role.scopeId() != null) {
+                // The team, its departments and the personal sheets of its members
+                subtrees.add(role.scopeId());
+                editable.set(intern(role.scopeId()));
+                teamDepartments.getOrDefault(role.scopeId(), Set.of()).forEach(d -> editable.set(intern(d)));
+                members.getOrDefault(role.scopeId(), Set.of()).forEach(u -> editable.set(intern(u)));
+            } else if ("DEPARTMENT_ADMIN".equals(role.role()) && "DEPARTMENT".equals(role.scopeType())
+                    && role.scopeId() != null) {
+                // The department and the personal sheets of its members
+                subtrees.add(role.scopeId());
+                editable.set(intern(role.scopeId()));
+                members.getOrDefault(role.scopeId(), Set.of()).forEach(u -> editable.set(intern(u)));
+            }
+        }
+        UUID dept = userDepartment.get(userId);
+        if (dept != null && userRoles.stream().anyMatch(r -> "MEMBER".equals(r.role()))) {
+            editable.set(intern(dept)); // members manage their own department's OKR
+            single.add(dept);
+        }
+
+        BitSet viewable = (BitSet) editable.clone();
+        UUID team = userTeam.get(userId);
+        if (team != null) {
+            viewable.set(intern(team));
+        }
+        if (dept != null) {
+            viewable.set(intern(dept));
+        }
+        return new Acl(false, false, editable, viewable, new EditableScopes(Set.copyOf(subtrees), Set.copyOf(single)));
+    }
+
+    private int intern(UUID scopeId) {
+        synchronized (scopeIndex) {
+            Integer index = scopeIndex.get(scopeId);
+            if (index == null) {
+                index = scopes.size();
+                scopes.add(scopeId);
+                scopeIndex.put(scopeId, index);
+            }
+            return index;
+        }
+    }
+
+    private boolean test(BitSet bits, UUID scopeId) {
+        Integer index;
+        synchronized (scopeIndex) {
+            index = scopeIndex.get(scopeId);
+        }
+        return index != null && bits.get(index);
+    }
+
+    private Set<UUID> resolve(BitSet bits) {
+        Set<UUID> ids = new HashSet<>();
+        synchronized (scopeIndex) {
+            for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                ids.add(scopes.get(i));
+            }
+        }
+        return ids;
+    }
+}
@@ -3,8 +3,10 @@ package com.onnorokom.okr.service.impl;
 import com.onnorokom.okr.dto.*;
 import com.onnorokom.okr.model.*;
 import com.onnorokom.okr.repository.*;
+import com.onnorokom.okr.security.SecurityVersionCache;
 import com.onnorokom.okr.service.AdminService;
 import com.onnorokom.okr.service.CycleService;
+import com.onnorokom.okr.service.RefreshTokenService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -35,11 +37,15 @@ public class AdminServiceImpl implements AdminService {
     @Autowired
     private CycleService cycleService;
     @Autowired
-    private ObjectiveRepository objectiveRepository;
+    private AclIndex aclIndex;
     @Autowired
-    private KeyResultRepository keyResultRepository;
+    private OrgClosureRepository orgClosureRepository;
     @Autowired
-    private AuditLogRepository auditLogRepository;
+    private SecurityVersionCache securityVersionCache;
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    @Autowired
+    private CascadeDeleter cascadeDeleter;
 
     @Override
     public List<UserDto> getAllUsers() {
@@ -64,7 +70,9 @@ public class AdminServiceImpl implements AdminService {
         }
         Company c = new Company();
         c.setName("Onnorokom");
-        return companyRepository.save(c);
+        c = companyRepository.save(c);
+        orgClosureRepository.insertNode(c.getId(), "COMPANY");
+        return c;
     }
 
     @Override
@@ -100,6 +108,15 @@ public class AdminServiceImpl implements AdminService {
 
         user = userRepository.save(user);
 
+        // Place the user in the org closure under their department and team
+        orgClosureRepository.insertNode(user.getId(), "USER");
+        if (user.getDepartment() != null) {
+            orgClosureRepository.attach(user.getId(), user.getDepartment().getId());
+        }
+        if (user.getTeam() != null) {
+            orgClosureRepository.attach(user.getId(), user.getTeam().getId());
+        }
+
         // Assign Role
         RoleAssignment ra = new RoleAssignment();
         ra.setUser(user);
@@ -124,6 +141,9 @@ public class AdminServiceImpl implements AdminService {
             ra.setScopeId(user.getId());
         }
         roleAssignmentRepository.save(ra);
+        aclIndex.userChanged(user.getId(), user.getTeam() != null ? user.getTeam().getId() : null,
+                user.getDepartment() != null ? user.getDepartment().getId() : null,
+                List.of(new AclIndex.Role(ra.getRole(), ra.getScopeType(), ra.getScopeId())));
 
         // Auto-create personal OKR sheet for the active cycle
         Optional<Cycle> activeCycle = cycleService.getActiveCycle();
@@ -156,6 +176,9 @@ public class AdminServiceImpl implements AdminService {
         team.setName(request.getName());
         team.setCompany(getOrCreateDefaultCompany());
         team = teamRepository.save(team);
+        orgClosureRepository.insertNode(team.getId(), "TEAM");
+        orgClosureRepository.attach(team.getId(), team.getCompany().getId());
+        aclIndex.orgChanged();
 
         // Auto-create Team OKR sheet for the active cycle
         Optional<Cycle> activeCycle = cycleService.getActiveCycle();
@@ -181,65 +204,18 @@ public class AdminServiceImpl implements AdminService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         user.setIsBlocked(blocked);
         userRepository.save(user);
+        // Revoke outstanding tokens (blocked users are also rejected by the version lookup itself)
+        securityVersionCache.revoke(List.of(userId));
+        if (blocked) {
+            refreshTokenService.revokeAll(userId);
+        }
         return mapUser(user);
     }
 
     @Override
     @Transactional
-    public void deleteUser(java.util.UUID userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        // Nullify owner references in key results
-        List<KeyResult> userKeyResults = keyResultRepository.findByOwnerId(userId);
-        for (KeyResult kr : userKeyResults) {
-            kr.setOwner(null);
-            keyResultRepository.save(kr);
-        }
-
-        // Nullify owner references in objectives
-        List<Objective> userObjectives = objectiveRepository.findByOwnerId(userId);
-        for (Objective obj : userObjectives) {
-            obj.setOwner(null);
-            objectiveRepository.save(obj);
-        }
-
-        // Delete role assignments
-        roleAssignmentRepository.deleteByUserId(userId);
-
-        // Delete audit logs for this user
-        auditLogRepository.deleteByActorId(userId);
-
-        // Delete personal OKR sheets (with their objectives and key results)
-        deleteOkrSheetsByScope("PERSONAL", userId);
-
-        // Delete the user
-        userRepository.delete(user);
-    }
-
-    /**
-     * Helper method to delete OKR sheets and all their objectives/key results
-     */
-    private void deleteOkrSheetsByScope(String scopeType, java.util.UUID scopeId) {
-        List<OkrSheet> sheets = okrSheetRepository.findAll().stream()
-                .filter(s -> scopeType.equals(s.getScopeType()) && scopeId.equals(s.getScopeId()))
-                .collect(Collectors.toList());
-
-        for (OkrSheet sheet : sheets) {
-            deleteOkrSheetContents(sheet.getId());
-        }
-        okrSheetRepository.deleteAll(sheets);
-    }
-
-    /**
-     * Helper method to delete objectives and key results for a sheet
-     */
-    private void deleteOkrSheetContents(java.util.UUID sheetId) {
-        List<Objective> objectives = objectiveRepository.findBySheetId(sheetId);
-        for (Objective obj : objectives) {
-            keyResultRepository.deleteByObjectiveId(obj.getId());
-        }
-        objectiveRepository.deleteBySheetId(sheetId);
+    public DeletionReportDto deleteUser(java.util.UUID userId, boolean dryRun) {
+        return cascadeDeleter.deleteUser(userId, dryRun);
     }
 
     @Override
@@ -264,6 +240,9 @@ public class AdminServiceImpl implements AdminService {
         dept.setName(request.getName());
         dept.setTeam(team);
         dept = departmentRepository.save(dept);
+        orgClosureRepository.insertNode(dept.getId(), "DEPARTMENT");
+        orgClosureRepository.attach(dept.getId(), team.getId());
+        aclIndex.departmentChanged(dept.getId(), team.getId());
 
         // Auto-create Department OKR sheet for the active cycle
         Optional<Cycle> activeCycle = cycleService.getActiveCycle();
@@ -286,59 +265,13 @@ public class AdminServiceImpl implements AdminService {
 
     @Override
     @Transactional
-    public void deleteTeam(java.util.UUID teamId) {
-        Team team = teamRepository.findById(teamId)
-                .orElseThrow(() -> new RuntimeException("Team not found"));
-
-        // Unassign users from this team first (before deleting departments)
-        List<User> teamUsers = userRepository.findByTeamId(teamId);
-        for (User user : teamUsers) {
-            user.setTeam(null);
-            user.setDepartment(null); // Also clear department since it belongs to this team
-            userRepository.save(user);
-        }
-
-        // Get all departments in this team and delete them with their OKR sheets
-        List<Department> departments = departmentRepository.findByTeamId(teamId);
-        for (Department dept : departments) {
-            // Delete department OKR sheets with objectives and key results
-            deleteOkrSheetsByScope("DEPARTMENT", dept.getId());
-            // Delete role assignments for this department scope
-            roleAssignmentRepository.deleteByScopeTypeAndScopeId("DEPARTMENT", dept.getId());
-        }
-        // Delete all departments in this team
-        departmentRepository.deleteAll(departments);
-
-        // Delete team OKR sheets with objectives and key results
-        deleteOkrSheetsByScope("TEAM", teamId);
-
-        // Delete role assignments for this team scope
-        roleAssignmentRepository.deleteByScopeTypeAndScopeId("TEAM", teamId);
-
-        // Delete the team
-        teamRepository.delete(team);
+    public DeletionReportDto deleteTeam(java.util.UUID teamId, boolean dryRun) {
+        return cascadeDeleter.deleteTeam(teamId, dryRun);
     }
 
     @Override
     @Transactional
-    public void deleteDepartment(java.util.UUID departmentId) {
-        Department dept = departmentRepository.findById(departmentId)
-                .orElseThrow(() -> new RuntimeException("Department not found"));
-
-        // Unassign users from this department
-        List<User> deptUsers = userRepository.findByDepartmentId(departmentId);
-        for (User user : deptUsers) {
-            user.setDepartment(null);
-            userRepository.save(user);
-        }
-
-        // Delete department OKR sheets with objectives and key results
-        deleteOkrSheetsByScope("DEPARTMENT", departmentId);
-
-        // Delete role assignments for this department scope
-        roleAssignmentRepository.deleteByScopeTypeAndScopeId("DEPARTMENT", departmentId);
-
-        // Delete the department
-        departmentRepository.delete(dept);
+    public DeletionReportDto deleteDepartment(java.util.UUID departmentId, boolean dryRun) {
+        return cascadeDeleter.deleteDepartment(departmentId, dryRun);
     }
 }
@@ -0,0 +1,217 @@
+package com.onnorokom.okr.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onnorokom.okr.dto.AuditEntryDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Audit months that were moved out of the live partitions, stored in the shared
+ * {@code audit_archive} table so every node sees the same history.
+ *
+ * One row per month holding the month as gzip'd NDJSON, rows ordered by (occurred_at, id)
+ * descending like the live history query, so a page can stop reading early. Archived months are
+ * UTC calendar months, always older than every live partition.
+ */
+@Component
+public class AuditArchive {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Compresses the rows into a temporary file, so a month never has to fit in memory. The caller
+     * stores it with {@link #store} and deletes it afterwards.
+     */
+    public Path spool(Consumer<Consumer<AuditEntryDto>> rows) {
+        try {
+            Path tmp = Files.createTempFile("audit-archive-", ".ndjson.gz");
+            try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(tmp)), StandardCharsets.UTF_8))) {
+                rows.accept(entry -> {
+                    try {
+                        out.write(objectMapper.writeValueAsString(entry));
+                        out.newLine();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            return tmp;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not spool audit month", e);
+        }
+    }
+
+    /**
+     * Saves a spooled month, replacing an earlier attempt. Runs in the caller's transaction, which
+     * also drops the partition, so the month is never both gone and unarchived.
+     */
+    public void store(YearMonth month, Path spooled, long entries) {
+        try (InputStream in = Files.newInputStream(spooled)) {
+            long size = Files.size(spooled);
+            jdbcTemplate.update("INSERT INTO audit_archive (month, entry_count, data) VALUES (?, ?, ?)"
+                    + " ON CONFLICT (month) DO UPDATE SET entry_count = EXCLUDED.entry_count, data = EXCLUDED.data,"
+                    + " archived_at = CURRENT_TIMESTAMP",
+                    ps -> {
+                        ps.setObject(1, month.atDay(1));
+                        ps.setLong(2, entries);
+                        ps.setBinaryStream(3, in, size);
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store audit month " + month, e);
+        }
+    }
+
+    /**
+     * Archived months, newest first.
+     */
+    public List<YearMonth> months() {
+        return jdbcTemplate.query("SELECT month FROM audit_archive ORDER BY month DESC",
+                (rs, i) -> YearMonth.from(rs.getObject(1, LocalDate.class)));
+    }
+
+    /**
+     * Same contract as {@code AuditLogRepositoryCustom.findPage}, served from the archive table.
+     * {@code limit} counts stored rows; the per-field entries of one compact row are never split.
+     */
+    public List<AuditEntryDto> findPage(String entityType, UUID entityId, UUID actorId, Instant from, Instant to,
+            Instant beforeAt, UUID beforeId, int limit) {
+        List<AuditEntryDto> page = new ArrayList<>();
+        int[] rows = new int[1];
+        for (YearMonth month : months()) {
+            if (rows[0] >= limit) {
+                break;
+            }
+            Instant monthStart = month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+            Instant monthEnd = month.plusMonths(1).atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+            if ((from != null && !monthEnd.isAfter(from)) || (to != null && !monthStart.isBefore(to))
+                    || (beforeAt != null && monthStart.isAfter(beforeAt))) {
+                continue;
+            }
+            readMonth(month, entry -> {
+                if ((entityType == null || entityType.equals(entry.getEntityType()))
+                        && (entityId == null || entityId.equals(entry.getEntityId()))
+                        && (actorId == null || actorId.equals(entry.getActorId()))
+                        && (from == null || !entry.getOccurredAt().isBefore(from))
+                        && (to == null || entry.getOccurredAt().isBefore(to))
+                        && (beforeAt == null || isBefore(entry, beforeAt, beforeId))) {
+                    boolean newRow = page.isEmpty() || !page.get(page.size() - 1).getId().equals(entry.getId());
+                    if (newRow) {
+                        if (rows[0] >= limit) {
+                            return false;
+                        }
+                        rows[0]++;
+                    }
+                    page.add(entry);
+                }
+                return true;
+            });
+        }
+        return page;
+    }
+
+    /**
+     * Same contract as {@code AuditLogRepositoryCustom.findByEntityIds}, served from the archive
+     * table: entries with {@code after < occurred_at <= upTo} (no upper bound when {@code upTo} is
+     * null), oldest first. Only the months overlapping the range are read.
+     */
+    public List<AuditEntryDto> findByEntityIds(Collection<UUID> entityIds, Instant after, Instant upTo) {
+        List<AuditEntryDto> entries = new ArrayList<>();
+        if (entityIds.isEmpty()) {
+            return entries;
+        }
+        Set<UUID> ids = new HashSet<>(entityIds);
+        List<YearMonth> months = new ArrayList<>(months());
+        Collections.reverse(months);
+        for (YearMonth month : months) {
+            Instant monthStart = month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+            Instant monthEnd = month.plusMonths(1).atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+            if (!monthEnd.isAfter(after) || (upTo != null && monthStart.isAfter(upTo))) {
+                continue;
+            }
+            List<AuditEntryDto> monthEntries = new ArrayList<>();
+            readMonth(month, entry -> {
+                if (ids.contains(entry.getEntityId()) && entry.getOccurredAt().isAfter(after)
+                        && (upTo == null || !entry.getOccurredAt().isAfter(upTo))) {
+                    monthEntries.add(entry);
+                }
+                return true;
+            });
+            Collections.reverse(monthEntries); // Stored newest first
+            entries.addAll(monthEntries);
+        }
+        return entries;
+    }
+
+    private interface EntryVisitor {
+        /** Returns false to stop reading. */
+        boolean visit(AuditEntryDto entry);
+    }
+
+    private void readMonth(YearMonth month, EntryVisitor visitor) {
+        jdbcTemplate.query("SELECT data FROM audit_archive WHERE month = ?", (ResultSetExtractor<Void>) rs -> {
+            if (!rs.next()) {
+                return null;
+            }
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(rs.getBinaryStream(1)), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (!line.isEmpty() && !visitor.visit(objectMapper.readValue(line, AuditEntryDto.class))) {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read audit archive " + month, e);
+            }
+            return null;
+        }, month.atDay(1));
+    }
+
+    /**
+     * (occurred_at, id) < (beforeAt, beforeId), with ids compared like PostgreSQL does (unsigned bytes).
+     */
+    private static boolean isBefore(AuditEntryDto entry, Instant beforeAt, UUID beforeId) {
+        int byTime = entry.getOccurredAt().compareTo(beforeAt);
+        if (byTime != 0) {
+            return byTime < 0;
+        }
+        UUID id = entry.getId();
+        int byId = Long.compareUnsigned(id.getMostSignificantBits(), beforeId.getMostSignificantBits());
+        if (byId == 0) {
+            byId = Long.compareUnsigned(id.getLeastSignificantBits(), beforeId.getLeastSignificantBits());
+        }
+        return byId < 0;
+    }
+}
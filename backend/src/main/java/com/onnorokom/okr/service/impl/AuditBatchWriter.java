@@ -0,0 +1,175 @@
+package com.onnorokom.okr.service.impl;
+
+import com.onnorokom.okr.model.AuditLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buffers audit entries per transaction and writes them as one JDBC batch just before the
+ * surrounding transaction commits, so audit rows commit or roll back with the change they describe.
+ *
+ * {@code app.auditMode=transactional} (default) writes the batch straight into audit_log.
+ * {@code app.auditMode=outbox} writes it into {@code audit_outbox}, a narrow table without
+ * secondary indexes or partitions, and a poller moves outbox rows into audit_log every
+ * {@code app.auditOutboxPollInterval}. Entries are as durable as the transaction either way; the
+ * outbox only takes the index maintenance of audit_log off the request path. Pollers on several
+ * nodes skip each other's locked rows, so they never move an entry twice.
+ */
+@Component
+public class AuditBatchWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditBatchWriter.class);
+
+    private static final String COLUMNS = "(actor_user_id, entity_type, entity_id, field_name, old_value, new_value, changes, occurred_at)";
+
+    private static final String INSERT_SQL = "INSERT INTO %s " + COLUMNS + " VALUES (?, ?, ?, ?, ?, ?, CAST(? AS jsonb), ?)";
+
+    // Moves the oldest batch; an actor deleted since the entry was written becomes NULL, like ON DELETE SET NULL
+    private static final String DRAIN_SQL = "WITH moved AS ("
+            + " DELETE FROM audit_outbox WHERE id IN"
+            + "   (SELECT id FROM audit_outbox ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED)"
+            + " RETURNING actor_user_id, entity_type, entity_id, field_name, old_value, new_value, changes, occurred_at)"
+            + " INSERT INTO audit_log " + COLUMNS
+            + " SELECT (SELECT u.id FROM users u WHERE u.id = m.actor_user_id), m.entity_type, m.entity_id,"
+            + "   m.field_name, m.old_value, m.new_value, m.changes, m.occurred_at FROM moved m";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.auditMode:transactional}")
+    private String auditMode;
+
+    @Value("${app.auditBatchSize:200}")
+    private int batchSize;
+
+    private boolean outbox;
+    private String insertSql;
+
+    private Timer flushLatency;
+    private DistributionSummary batchSizes;
+    private Counter drained;
+
+    @PostConstruct
+    void start() {
+        flushLatency = Timer.builder("okr.audit.flush.latency")
+                .description("Time to insert one batch of audit entries")
+                .register(meterRegistry);
+        batchSizes = DistributionSummary.builder("okr.audit.batch.size")
+                .description("Audit entries per insert batch")
+                .register(meterRegistry);
+        drained = Counter.builder("okr.audit.outbox.drained")
+                .description("Entries moved from audit_outbox into audit_log")
+                .register(meterRegistry);
+
+        outbox = "outbox".equalsIgnoreCase(auditMode);
+        insertSql = String.format(INSERT_SQL, outbox ? "audit_outbox" : "audit_log");
+        if (outbox) {
+            logger.info("Audit outbox enabled (batch {})", batchSize);
+        }
+    }
+
+    /**
+     * Adds entries to the current transaction's batch, or writes them right away when no
+     * transaction is active.
+     */
+    public void submit(List<AuditLog> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        for (AuditLog entry : entries) {
+            if (entry.getOccurredAt() == null) {
+                entry.setOccurredAt(Instant.now());
+            }
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            transactionBuffer().addAll(entries);
+        } else {
+            write(entries);
+        }
+    }
+
+    /**
+     * Moves outbox entries into audit_log, oldest first, until the outbox is empty. Each batch is
+     * its own statement, so a failure keeps the rest of the outbox for the next run.
+     */
+    @Scheduled(initialDelayString = "${app.auditOutboxPollInterval:PT1S}",
+            fixedDelayString = "${app.auditOutboxPollInterval:PT1S}")
+    public void drainOutbox() {
+        if (!outbox) {
+            return;
+        }
+        try {
+            int moved;
+            do {
+                moved = jdbcTemplate.update(DRAIN_SQL, batchSize);
+                drained.increment(moved);
+            } while (moved == batchSize);
+        } catch (DataAccessException ex) {
+            logger.error("Draining the audit outbox failed, will retry", ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<AuditLog> transactionBuffer() {
+        List<AuditLog> buffer = (List<AuditLog>) TransactionSynchronizationManager.getResource(this);
+        if (buffer != null) {
+            return buffer;
+        }
+        List<AuditLog> created = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                write(created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(AuditBatchWriter.this);
+            }
+        });
+        return created;
+    }
+
+    private void write(List<AuditLog> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        batchSizes.record(entries.size());
+        flushLatency.record(() -> jdbcTemplate.batchUpdate(insertSql, entries, batchSize, this::bind));
+    }
+
+    private void bind(PreparedStatement ps, AuditLog entry) throws SQLException {
+        ps.setObject(1, entry.getActor() != null ? entry.getActor().getId() : null, Types.OTHER);
+        ps.setString(2, entry.getEntityType());
+        ps.setObject(3, entry.getEntityId(), Types.OTHER);
+        ps.setString(4, entry.getFieldName());
+        ps.setString(5, entry.getOldValue());
+        ps.setString(6, entry.getNewValue());
+        ps.setString(7, entry.getChanges());
+        ps.setTimestamp(8, Timestamp.from(entry.getOccurredAt()));
+    }
+}
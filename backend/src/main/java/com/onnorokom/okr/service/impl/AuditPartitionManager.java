@@ -0,0 +1,217 @@
+package com.onnorokom.okr.service.impl;
+
+import com.onnorokom.okr.repository.AuditLogRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly audit_log partitions rolling.
+ *
+ * Creates partitions {@code app.auditPartitionMonthsAhead} months ahead, and moves every month
+ * older than {@code app.auditRetentionMonths} into the shared {@link AuditArchive} table before detaching and
+ * dropping its partition. Dropping a whole partition replaces row-by-row deletes and the vacuum
+ * work they cause, and keeps the live indexes sized to the retention window. Months are UTC
+ * calendar months, computed by the database.
+ */
+@Component
+public class AuditPartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditPartitionManager.class);
+
+    // pg_advisory_lock key held while maintenance runs
+    private static final long MAINTENANCE_LOCK = 0x6f6b722d61756469L;
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("audit_log_(\\d{4})_(\\d{2})");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private AuditArchive archive;
+
+    @Value("${app.auditPartitionMonthsAhead:3}")
+    private int monthsAhead;
+
+    @Value("${app.auditRetentionMonths:12}")
+    private int retentionMonths;
+
+    @Scheduled(initialDelayString = "PT1M", fixedDelayString = "${app.auditMaintenanceInterval:PT6H}")
+    public void maintain() {
+        // Every node schedules this; a session-level advisory lock lets only one of them run it
+        Boolean ran = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (Statement st = connection.createStatement();
+                    ResultSet rs = st.executeQuery("SELECT pg_try_advisory_lock(" + MAINTENANCE_LOCK + ")")) {
+                if (!rs.next() || !rs.getBoolean(1)) {
+                    return false;
+                }
+            }
+            try {
+                runMaintenance();
+            } finally {
+                try (Statement st = connection.createStatement()) {
+                    st.execute("SELECT pg_advisory_unlock(" + MAINTENANCE_LOCK + ")");
+                }
+            }
+            return true;
+        });
+        if (!Boolean.TRUE.equals(ran)) {
+            logger.debug("Audit partition maintenance is running on another node");
+        }
+    }
+
+    private void runMaintenance() {
+        // Separate steps: a month that cannot be created must not stop older months from archiving
+        try {
+            createAhead();
+        } catch (RuntimeException ex) {
+            logger.error("Creating audit partitions failed", ex);
+        }
+        try {
+            archiveCold();
+        } catch (RuntimeException ex) {
+            logger.error("Archiving audit partitions failed", ex);
+        }
+    }
+
+    /**
+     * Creates the partitions of the coming months, and of every month that has rows stranded in
+     * the default partition so they get moved out (and eventually archived).
+     */
+    void createAhead() {
+        Set<YearMonth> months = new TreeSet<>();
+        for (int i = 0; i <= monthsAhead; i++) {
+            months.add(currentMonth(i));
+        }
+        months.addAll(jdbcTemplate.query(
+                "SELECT DISTINCT to_char(occurred_at AT TIME ZONE 'UTC', 'YYYY-MM') FROM audit_log_default",
+                (rs, i) -> YearMonth.parse(rs.getString(1))));
+        months.removeAll(partitions());
+        for (YearMonth month : months) {
+            createPartition(month);
+        }
+    }
+
+    void archiveCold() {
+        YearMonth oldestKept = currentMonth(-retentionMonths);
+        for (YearMonth month : partitions()) {
+            if (month.isBefore(oldestKept)) {
+                archiveMonth(month);
+            }
+        }
+    }
+
+    /**
+     * PostgreSQL refuses to create a partition whose range already has rows in the default
+     * partition. In that case the default partition is detached, the new partition created, the
+     * rows moved into it and the default partition attached again, all in one transaction.
+     */
+    private void createPartition(YearMonth month) {
+        String partition = partitionName(month);
+        String from = bound(month);
+        String to = bound(month.plusMonths(1));
+        String range = "occurred_at >= " + from + " AND occurred_at < " + to;
+        String create = String.format("CREATE TABLE IF NOT EXISTS %s PARTITION OF audit_log FOR VALUES FROM (%s) TO (%s)",
+                partition, from, to);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Boolean stranded = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM audit_log_default WHERE " + range + ")", Boolean.class);
+            if (!Boolean.TRUE.equals(stranded)) {
+                jdbcTemplate.execute(create);
+                return;
+            }
+            jdbcTemplate.execute("ALTER TABLE audit_log DETACH PARTITION audit_log_default");
+            jdbcTemplate.execute(create);
+            int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM audit_log_default WHERE " + range
+                    + " RETURNING *) INSERT INTO audit_log SELECT * FROM moved");
+            jdbcTemplate.execute("ALTER TABLE audit_log ATTACH PARTITION audit_log_default DEFAULT");
+            logger.info("Moved {} audit entries from the default partition into {}", moved, partition);
+        });
+    }
+
+    /**
+     * The UTC month {@code offset} months from now, as the database sees it, so every partition
+     * bound and month calculation uses the same clock and time zone.
+     */
+    private YearMonth currentMonth(int offset) {
+        return YearMonth.parse(jdbcTemplate.queryForObject(
+                "SELECT to_char(date_trunc('month', now() AT TIME ZONE 'UTC') + make_interval(months => ?), 'YYYY-MM')",
+                String.class, offset));
+    }
+
+    // Partition bounds carry an explicit UTC offset, so the session time zone does not matter
+    private static String bound(YearMonth month) {
+        return String.format("'%04d-%02d-01 00:00:00+00'", month.getYear(), month.getMonthValue());
+    }
+
+    private void archiveMonth(YearMonth month) {
+        String partition = partitionName(month);
+        long started = System.currentTimeMillis();
+
+        // Stream the partition out with a server-side cursor (only streams inside a transaction)
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        long[] rows = new long[1];
+        Path spooled = tx.execute(status -> archive.spool(sink -> auditLogRepository.streamPartition(partition,
+                entry -> {
+                    sink.accept(entry);
+                    rows[0]++;
+                })));
+
+        // Store the archive and remove the partition atomically
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                archive.store(month, spooled, rows[0]);
+                jdbcTemplate.execute("ALTER TABLE audit_log DETACH PARTITION " + partition);
+                jdbcTemplate.execute("DROP TABLE " + partition);
+            });
+        } finally {
+            try {
+                Files.deleteIfExists(spooled);
+            } catch (IOException e) {
+                logger.warn("Could not delete spool file {}", spooled, e);
+            }
+        }
+        logger.info("Archived audit partition {} ({} entries) in {} ms", partition, rows[0],
+                System.currentTimeMillis() - started);
+    }
+
+    private List<YearMonth> partitions() {
+        List<String> names = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = 'audit_log'::regclass ORDER BY c.relname",
+                String.class);
+        return names.stream()
+                .map(PARTITION_NAME::matcher)
+                .filter(Matcher::matches)
+                .map(m -> YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2))))
+                .toList();
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("audit_log_%04d_%02d", month.getYear(), month.getMonthValue());
+    }
+}
@@ -1,23 +1,71 @@
 package com.onnorokom.okr.service.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onnorokom.okr.dto.AuditEntryDto;
+import com.onnorokom.okr.dto.AuditPageDto;
 import com.onnorokom.okr.model.AuditLog;
+import com.onnorokom.okr.model.Cycle;
 import com.onnorokom.okr.model.User;
 import com.onnorokom.okr.repository.AuditLogRepository;
+import com.onnorokom.okr.repository.CycleRepository;
 import com.onnorokom.okr.service.AuditService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
+/**
+ * With {@code app.auditFormat=per-field} (default) every changed field is its own audit_log row.
+ * With {@code compact} the fields one mutation changes on one entity share a single row whose
+ * {@code changes} column maps field -> [old, new]; reads expand it back into per-field entries.
+ */
 @Service
 public class AuditServiceImpl implements AuditService {
 
+    private static final int MAX_PAGE_SIZE = 200;
+
+    @Autowired
+    private AuditBatchWriter auditWriter;
+
     @Autowired
     private AuditLogRepository auditLogRepository;
 
+    @Autowired
+    private AuditArchive auditArchive;
+
+    @Autowired
+    private CycleRepository cycleRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.auditFormat:per-field}")
+    private String auditFormat;
+
     @Override
-    @Transactional
     public void logChange(User actor, String entityType, UUID entityId, String fieldName, String oldValue,
             String newValue) {
         if ((oldValue == null && newValue == null) || (oldValue != null && oldValue.equals(newValue))) {
@@ -32,6 +80,190 @@ public class AuditServiceImpl implements AuditService {
         log.setOldValue(oldValue);
         log.setNewValue(newValue);
 
-        auditLogRepository.save(log);
+        logChanges(List.of(log));
+    }
+
+    @Override
+    public void logChanges(List<AuditLog> entries) {
+        auditWriter.submit("compact".equalsIgnoreCase(auditFormat) ? compact(entries) : entries);
+    }
+
+    /**
+     * Folds the entries of each (actor, entity) into one row carrying a {@code changes} map.
+     */
+    private List<AuditLog> compact(List<AuditLog> entries) {
+        Map<String, AuditLog> rows = new LinkedHashMap<>();
+        Map<String, Map<String, List<String>>> changes = new LinkedHashMap<>();
+        for (AuditLog entry : entries) {
+            UUID actorId = entry.getActor() != null ? entry.getActor().getId() : null;
+            String key = actorId + ":" + entry.getEntityType() + ":" + entry.getEntityId();
+            rows.computeIfAbsent(key, k -> {
+                AuditLog row = new AuditLog();
+                row.setActor(entry.getActor());
+                row.setEntityType(entry.getEntityType());
+                row.setEntityId(entry.getEntityId());
+                row.setOccurredAt(entry.getOccurredAt());
+                return row;
+            });
+            changes.computeIfAbsent(key, k -> new LinkedHashMap<>())
+                    .put(entry.getFieldName(), Arrays.asList(entry.getOldValue(), entry.getNewValue()));
+        }
+
+        List<AuditLog> result = new ArrayList<>(rows.size());
+        for (Map.Entry<String, AuditLog> row : rows.entrySet()) {
+            try {
+                row.getValue().setChanges(objectMapper.writeValueAsString(changes.get(row.getKey())));
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Could not encode audit changes", e);
+            }
+            result.add(row.getValue());
+        }
+        return result;
+    }
+
+    @Override
+    public AuditPageDto findEntries(String entityType, UUID entityId, UUID actorId, Instant from, Instant to,
+            String cursor, int limit, boolean includeArchived) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        Instant beforeAt = null;
+        UUID beforeId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                beforeAt = Instant.parse(parts[0]);
+                beforeId = UUID.fromString(parts[1]);
+            } catch (RuntimeException ex) {
+                throw new RuntimeException("Invalid cursor");
+            }
+        }
+
+        // Fetch one extra row to know whether another page follows. Limits count stored rows; a
+        // compact row expands to several entries that always stay on the same page.
+        List<AuditEntryDto> rows = new ArrayList<>(auditLogRepository.findPage(entityType, entityId, actorId, from, to,
+                beforeAt, beforeId, pageSize + 1));
+        int rowCount = countRows(rows);
+        if (includeArchived && rowCount <= pageSize) {
+            // Past the live partitions: continue into archived months, which are all older. Opt-in,
+            // because the archive is scanned month by month rather than looked up through an index.
+            rows.addAll(auditArchive.findPage(entityType, entityId, actorId, from, to, beforeAt, beforeId,
+                    pageSize + 1 - rowCount));
+        }
+
+        AuditPageDto page = new AuditPageDto();
+        if (countRows(rows) > pageSize) {
+            rows = rows.subList(0, endOfRows(rows, pageSize));
+            AuditEntryDto last = rows.get(rows.size() - 1);
+            String position = last.getOccurredAt() + "|" + last.getId();
+            page.setNextCursor(Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(position.getBytes(StandardCharsets.UTF_8)));
+        }
+        page.setEntries(rows);
+        return page;
+    }
+
+    /**
+     * Number of stored rows behind the entries; entries of one compact row are adjacent and share its id.
+     */
+    private static int countRows(List<AuditEntryDto> entries) {
+        int rows = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            if (i == 0 || !entries.get(i).getId().equals(entries.get(i - 1).getId())) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Index just past the entries of the first {@code maxRows} stored rows.
+     */
+    private static int endOfRows(List<AuditEntryDto> entries, int maxRows) {
+        int rows = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            if (i == 0 || !entries.get(i).getId().equals(entries.get(i - 1).getId())) {
+                if (rows == maxRows) {
+                    return i;
+                }
+                rows++;
+            }
+        }
+        return entries.size();
+    }
+
+    @Override
+    public void exportEntries(String format, UUID cycleId, String entityType, UUID actorId, boolean gzip,
+            OutputStream out) throws IOException {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            throw new RuntimeException("Unsupported export format: " + format);
+        }
+
+        Instant from = null;
+        Instant to = null;
+        if (cycleId != null) {
+            Cycle cycle = cycleRepository.findById(cycleId).orElseThrow(() -> new RuntimeException("Cycle not found"));
+            from = cycle.getStartDate().atStartOfDay(ZoneId.systemDefault()).toInstant();
+            to = cycle.getEndDate().plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
+        }
+        Instant windowFrom = from;
+        Instant windowTo = to;
+
+        GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, 64 * 1024) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip ? gzipOut : out, StandardCharsets.UTF_8),
+                64 * 1024);
+        if (csv) {
+            writer.write("id,occurred_at,actor_id,actor_email,actor_name,entity_type,entity_id,field_name,"
+                    + "old_value,new_value\n");
+        }
+
+        // The cursor only streams inside a transaction
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        try {
+            tx.executeWithoutResult(status -> auditLogRepository.streamEntries(entityType, actorId, windowFrom,
+                    windowTo, entry -> {
+                        try {
+                            if (csv) {
+                                writeCsvRow(writer, entry);
+                            } else {
+                                writer.write(objectMapper.writeValueAsString(entry));
+                                writer.write('\n');
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // Client went away
+        }
+
+        writer.flush();
+        if (gzipOut != null) {
+            gzipOut.finish();
+        }
+    }
+
+    private static void writeCsvRow(Writer writer, AuditEntryDto entry) throws IOException {
+        Object[] fields = { entry.getId(), entry.getOccurredAt(), entry.getActorId(), entry.getActorEmail(),
+                entry.getActorName(), entry.getEntityType(), entry.getEntityId(), entry.getFieldName(),
+                entry.getOldValue(), entry.getNewValue() };
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (fields[i] != null) {
+                writer.write(csvField(fields[i].toString()));
+            }
+        }
+        writer.write('\n');
+    }
+
+    // RFC 4180: quote fields containing separators, quotes or line breaks
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
     }
 }
@@ -0,0 +1,203 @@
+package com.onnorokom.okr.service.impl;
+
+import com.onnorokom.okr.dto.DeletionReportDto;
+import com.onnorokom.okr.security.SecurityVersionCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Deletes users, teams, departments and cycles with everything hanging off them.
+ *
+ * Each cascade is a fixed list of set-based statements ({@code UPDATE ... SET owner_user_id = NULL},
+ * {@code DELETE ... WHERE sheet_id IN (SELECT ...)}), so the number of round trips does not depend
+ * on how many users, sheets, objectives or KRs are affected. A dry run executes the matching
+ * {@code SELECT count(*)} of every statement instead and changes nothing. The statements of one
+ * cascade are written so they match disjoint rows, which keeps the dry-run counts exact.
+ *
+ * Must be called inside a transaction; in-memory caches are updated only for real runs.
+ */
+@Component
+public class CascadeDeleter {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private SheetSummaryCache summaryCache;
+    @Autowired
+    private AclIndex aclIndex;
+    @Autowired
+    private SecurityVersionCache securityVersionCache;
+
+    private record Step(String label, String countSql, String sql, Object[] args) {
+    }
+
+    private record SheetKey(UUID cycleId, UUID sheetId) {
+    }
+
+    public DeletionReportDto deleteUser(UUID userId, boolean dryRun) {
+        requireExists("users", userId, "User not found");
+        String personal = "scope_type = 'PERSONAL' AND scope_id = ?";
+
+        List<Step> steps = new ArrayList<>();
+        steps.add(update("keyResultsUnowned", "key_results", "owner_user_id = NULL", "owner_user_id = ?", userId));
+        steps.add(update("objectivesUnowned", "objectives", "owner_user_id = NULL", "owner_user_id = ?", userId));
+        steps.add(delete("roleAssignments", "role_assignments", "user_id = ?", userId));
+        steps.add(delete("auditEntries", "audit_log", "actor_user_id = ?", userId));
+        steps.addAll(sheetSteps(personal, userId));
+        steps.add(delete("orgClosure", "org_closure", "ancestor_id = ? OR descendant_id = ?", userId, userId));
+        steps.add(delete("users", "users", "id = ?", userId));
+
+        List<SheetKey> sheets = dryRun ? List.of() : sheetKeys(personal, userId);
+        DeletionReportDto report = run("USER", userId, steps, dryRun);
+        if (!dryRun) {
+            sheets.forEach(k -> summaryCache.invalidateSheet(k.cycleId(), k.sheetId()));
+            securityVersionCache.evictAfterCommit(List.of(userId));
+            aclIndex.userRemoved(userId);
+        }
+        return report;
+    }
+
+    public DeletionReportDto deleteTeam(UUID teamId, boolean dryRun) {
+        requireExists("teams", teamId, "Team not found");
+        String departments = "(SELECT id FROM departments WHERE team_id = ?)";
+        String members = "team_id = ? OR department_id IN " + departments;
+        String scopes = "(scope_type = 'TEAM' AND scope_id = ?) OR (scope_type = 'DEPARTMENT' AND scope_id IN "
+                + departments + ")";
+
+        List<Step> steps = new ArrayList<>();
+        // Members stay, unlinked from the team's branch
+        steps.add(delete("orgClosure", "org_closure",
+                "depth > 0 AND descendant_id IN (SELECT id FROM users WHERE " + members + ")", teamId, teamId));
+        steps.add(update("usersUnassigned", "users", "team_id = NULL, department_id = NULL", members, teamId, teamId));
+        steps.addAll(sheetSteps(scopes, teamId, teamId));
+        steps.add(delete("roleAssignments", "role_assignments", scopes, teamId, teamId));
+        steps.add(delete("orgClosure", "org_closure", "descendant_type <> 'USER' AND (ancestor_id = ? OR descendant_id = ?"
+                + " OR ancestor_id IN " + departments + " OR descendant_id IN " + departments + ")",
+                teamId, teamId, teamId, teamId));
+        steps.add(delete("departments", "departments", "team_id = ?", teamId));
+        steps.add(delete("teams", "teams", "id = ?", teamId));
+
+        return runScopeDeletion("TEAM", teamId, scopes, new Object[] { teamId, teamId }, steps, dryRun);
+    }
+
+    public DeletionReportDto deleteDepartment(UUID departmentId, boolean dryRun) {
+        requireExists("departments", departmentId, "Department not found");
+        String scope = "scope_type = 'DEPARTMENT' AND scope_id = ?";
+
+        List<Step> steps = new ArrayList<>();
+        // Members stay in their team: unlink them from the department, then re-link below the team
+        steps.add(delete("orgClosure", "org_closure",
+                "depth > 0 AND descendant_id IN (SELECT id FROM users WHERE department_id = ?)", departmentId));
+        steps.add(insert("orgClosureRelinked",
+                "org_closure (ancestor_id, ancestor_type, descendant_id, descendant_type, depth)",
+                "SELECT a.ancestor_id, a.ancestor_type, u.id, 'USER', a.depth + 1"
+                        + " FROM users u JOIN org_closure a ON a.descendant_id = u.team_id WHERE u.department_id = ?",
+                departmentId));
+        steps.add(update("usersUnassigned", "users", "department_id = NULL", "department_id = ?", departmentId));
+        steps.addAll(sheetSteps(scope, departmentId));
+        steps.add(delete("roleAssignments", "role_assignments", scope, departmentId));
+        steps.add(delete("orgClosure", "org_closure", "descendant_type <> 'USER' AND (ancestor_id = ? OR descendant_id = ?)",
+                departmentId, departmentId));
+        steps.add(delete("departments", "departments", "id = ?", departmentId));
+
+        return runScopeDeletion("DEPARTMENT", departmentId, scope, new Object[] { departmentId }, steps, dryRun);
+    }
+
+    public DeletionReportDto deleteCycle(UUID cycleId, boolean dryRun) {
+        requireExists("cycles", cycleId, "Cycle not found");
+
+        List<Step> steps = new ArrayList<>(sheetSteps("cycle_id = ?", cycleId));
+        steps.add(delete("cycles", "cycles", "id = ?", cycleId));
+
+        DeletionReportDto report = run("CYCLE", cycleId, steps, dryRun);
+        if (!dryRun) {
+            summaryCache.invalidateCycle(cycleId);
+        }
+        return report;
+    }
+
+    /**
+     * Team and department deletions: revokes the tokens of everyone holding a role on the removed
+     * scopes (their ACL shrinks), runs the steps and reloads the ACL index after commit.
+     */
+    private DeletionReportDto runScopeDeletion(String target, UUID id, String scopes, Object[] scopeArgs,
+            List<Step> steps, boolean dryRun) {
+        List<UUID> roleHolders = jdbcTemplate.queryForList(
+                "SELECT DISTINCT user_id FROM role_assignments WHERE " + scopes, UUID.class, scopeArgs);
+        List<SheetKey> sheets = dryRun ? List.of() : sheetKeys(scopes, scopeArgs);
+        if (!dryRun) {
+            securityVersionCache.revoke(roleHolders);
+        }
+
+        DeletionReportDto report = run(target, id, steps, dryRun);
+        report.getCounts().put("tokensRevoked", (long) roleHolders.size());
+        if (!dryRun) {
+            sheets.forEach(k -> summaryCache.invalidateSheet(k.cycleId(), k.sheetId()));
+            aclIndex.scopeRemoved();
+        }
+        return report;
+    }
+
+    /**
+     * Sheets matching {@code where} (a condition on okr_sheets) with their KRs, check-ins,
+     * objectives and checkpoints, children first.
+     */
+    private static List<Step> sheetSteps(String where, Object... args) {
+        String sheets = "(SELECT id FROM okr_sheets WHERE " + where + ")";
+        return List.of(
+                delete("checkIns", "key_result_checkins", "sheet_id IN " + sheets, args),
+                delete("keyResults", "key_results",
+                        "objective_id IN (SELECT id FROM objectives WHERE sheet_id IN " + sheets + ")", args),
+                delete("objectives", "objectives", "sheet_id IN " + sheets, args),
+                delete("checkpoints", "sheet_checkpoints", "sheet_id IN " + sheets, args),
+                delete("sheets", "okr_sheets", "(" + where + ")", args));
+    }
+
+    private List<SheetKey> sheetKeys(String where, Object... args) {
+        return jdbcTemplate.query("SELECT cycle_id, id FROM okr_sheets WHERE " + where,
+                (rs, i) -> new SheetKey(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class)), args);
+    }
+
+    private DeletionReportDto run(String target, UUID id, List<Step> steps, boolean dryRun) {
+        long started = System.currentTimeMillis();
+        DeletionReportDto report = new DeletionReportDto();
+        report.setTarget(target);
+        report.setTargetId(id);
+        report.setDryRun(dryRun);
+        for (Step step : steps) {
+            long rows = dryRun
+                    ? jdbcTemplate.queryForObject(step.countSql(), Long.class, step.args())
+                    : jdbcTemplate.update(step.sql(), step.args());
+            report.getCounts().merge(step.label(), rows, Long::sum);
+        }
+        report.setDurationMs(System.currentTimeMillis() - started);
+        return report;
+    }
+
+    private void requireExists(String table, UUID id, String message) {
+        Long found = jdbcTemplate.queryForObject("SELECT count(*) FROM " + table + " WHERE id = ?", Long.class, id);
+        if (found == null || found == 0) {
+            throw new RuntimeException(message);
+        }
+    }
+
+    private static Step delete(String label, String table, String where, Object... args) {
+        return new Step(label, "SELECT count(*) FROM " + table + " WHERE " + where,
+                "DELETE FROM " + table + " WHERE " + where, args);
+    }
+
+    private static Step update(String label, String table, String set, String where, Object... args) {
+        return new Step(label, "SELECT count(*) FROM " + table + " WHERE " + where,
+                "UPDATE " + table + " SET " + set + " WHERE " + where, args);
+    }
+
+    private static Step insert(String label, String into, String select, Object... args) {
+        return new Step(label, "SELECT count(*) FROM (" + select + ") s",
+                "INSERT INTO " + into + " " + select + " ON CONFLICT DO NOTHING", args);
+    }
+}
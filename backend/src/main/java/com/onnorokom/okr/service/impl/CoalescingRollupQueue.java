@@ -0,0 +1,134 @@
+package com.onnorokom.okr.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind queue of dirty sheets for the async rollup mode.
+ *
+ * Each sheet is held at most once, however many writes hit it, and a single worker recomputes
+ * every dirty sheet once per debounce window. Readers call {@link #flush(Collection)} with the
+ * sheets they are about to show, to recompute just those inline if they are pending; a striped lock makes that wait for a recompute the
+ * worker may already be running, which gives read-your-writes on this instance.
+ */
+class CoalescingRollupQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingRollupQueue.class);
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final ConcurrentHashMap<UUID, Long> dirty = new ConcurrentHashMap<>(); // sheetId -> enqueued at (nanos)
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService worker;
+    private final long debounceMs;
+    private final Consumer<UUID> recompute;
+
+    private final Timer lag;
+    private final Counter coalesced;
+
+    CoalescingRollupQueue(long debounceMs, Consumer<UUID> recompute, MeterRegistry registry) {
+        this.debounceMs = debounceMs;
+        this.recompute = recompute;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rollup-worker");
+            t.setDaemon(true);
+            return t;
+        });
+
+        Gauge.builder("okr.rollup.queue.depth", dirty, ConcurrentHashMap::size).register(registry);
+        this.lag = Timer.builder("okr.rollup.queue.lag")
+                .description("Time from the first write to a sheet until its recompute")
+                .register(registry);
+        this.coalesced = Counter.builder("okr.rollup.queue.coalesced")
+                .description("Writes absorbed by an already pending recompute")
+                .register(registry);
+    }
+
+    void markDirty(UUID sheetId) {
+        if (dirty.putIfAbsent(sheetId, System.nanoTime()) != null) {
+            coalesced.increment();
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * Recomputes the sheet now if it is pending, or waits for a recompute already in progress.
+     * Returns true if this call recomputed it.
+     */
+    boolean flush(UUID sheetId) {
+        synchronized (locks[Math.floorMod(sheetId.hashCode(), LOCK_STRIPES)]) {
+            Long enqueuedAt = dirty.remove(sheetId);
+            if (enqueuedAt == null) {
+                return false;
+            }
+            try {
+                recompute.accept(sheetId);
+                lag.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return true;
+            } catch (RuntimeException ex) {
+                logger.error("Rollup of sheet {} failed, will retry", sheetId, ex);
+                dirty.putIfAbsent(sheetId, enqueuedAt);
+                scheduleDrain();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Flushes only those of the given sheets that are pending; the rest of the queue is left to
+     * the worker. Returns the sheets this call recomputed.
+     */
+    Set<UUID> flush(Collection<UUID> sheetIds) {
+        Set<UUID> flushed = new HashSet<>();
+        for (UUID sheetId : sheetIds) {
+            if (dirty.containsKey(sheetId) && flush(sheetId)) {
+                flushed.add(sheetId);
+            }
+        }
+        return flushed;
+    }
+
+    void flushAll() {
+        for (UUID sheetId : new ArrayList<>(dirty.keySet())) {
+            flush(sheetId);
+        }
+    }
+
+    int depth() {
+        return dirty.size();
+    }
+
+    void shutdown() {
+        worker.shutdown();
+        flushAll();
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            worker.schedule(() -> {
+                drainScheduled.set(false);
+                flushAll();
+            }, debounceMs, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.onnorokom.okr.service.impl;
+
+import com.onnorokom.okr.dto.CycleRolloverDto;
+import com.onnorokom.okr.dto.CycleRolloverRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Copies sheets with their objectives and key results from one cycle into another.
+ *
+ * Every level is one {@code INSERT ... SELECT}, followed by two {@code UPDATE}s that recompute the
+ * rollup aggregates of the target sheets, so the statement count is fixed however many sheets are
+ * copied. Target sheets are matched by scope: a sheet that already exists in the target cycle (e.g.
+ * auto-created with a department) receives the copied objectives instead of getting a twin.
+ * Copied objectives and KRs record their source row in {@code rolled_over_from}, and unique
+ * indexes on it (and on a sheet's cycle and scope) make every statement skip rows copied before.
+ * Running the same rollover again, or after a partial failure, therefore only adds what is
+ * missing. Like the normal create paths, every copied objective and KR gets a "created" audit
+ * entry and every KR its initial check-in, written by the same statement that copies them.
+ *
+ * Key results start over: current value back to the start value, progress 0, ON_TRACK, and no
+ * deadline or comments from the old cycle.
+ */
+@Component
+public class CycleRollover {
+
+    private static final String INSERT_SHEETS = "INSERT INTO okr_sheets (cycle_id, scope_type, scope_id)"
+            + " SELECT DISTINCT :target, s.scope_type, s.scope_id FROM okr_sheets s WHERE %s"
+            + " ON CONFLICT (cycle_id, scope_type, scope_id) DO NOTHING";
+
+    // Target sheet t of source sheet s
+    private static final String SAME_SCOPE = "t.cycle_id = :target AND t.scope_type = s.scope_type AND t.scope_id = s.scope_id";
+
+    private static final String INSERT_OBJECTIVES = "INSERT INTO objectives"
+            + " (sheet_id, title, owner_user_id, sort_order, weight, rolled_over_from)"
+            + " SELECT t.id, o.title, o.owner_user_id, o.sort_order, o.weight, o.id"
+            + " FROM objectives o"
+            + " JOIN okr_sheets s ON s.id = o.sheet_id"
+            + " JOIN okr_sheets t ON " + SAME_SCOPE
+            + " WHERE %s"
+            + " ON CONFLICT (sheet_id, rolled_over_from) WHERE rolled_over_from IS NOT NULL DO NOTHING"
+            + " RETURNING id, title";
+
+    private static final String INSERT_KEY_RESULTS = "INSERT INTO key_results"
+            + " (objective_id, title, metric_type, start_value, target_value, current_value, computed_progress,"
+            + " owner_user_id, confidence_level, aligned_projects, sort_order, weight, rolled_over_from)"
+            + " SELECT c.id, k.title, k.metric_type, k.start_value, k.target_value, k.start_value,"
+            + "   CASE WHEN abs(COALESCE(k.target_value, 100) - COALESCE(k.start_value, 0)) < 0.0001"
+            + "     AND COALESCE(k.start_value, 0) >= COALESCE(k.target_value, 100) THEN 1.0 ELSE 0.0 END,"
+            + "   k.owner_user_id, 'ON_TRACK', k.aligned_projects, k.sort_order, k.weight, k.id"
+            + " FROM key_results k"
+            + " JOIN objectives o ON o.id = k.objective_id"
+            + " JOIN okr_sheets s ON s.id = o.sheet_id"
+            + " JOIN okr_sheets t ON " + SAME_SCOPE
+            + " JOIN objectives c ON c.sheet_id = t.id AND c.rolled_over_from = o.id"
+            + " WHERE %s"
+            + " ON CONFLICT (objective_id, rolled_over_from) WHERE rolled_over_from IS NOT NULL DO NOTHING"
+            + " RETURNING id, objective_id, title, current_value, computed_progress, confidence_level, created_at";
+
+    // The initial check-in createKeyResult records, for every KR the insert in CTE "created" returned
+    private static final String INSERT_CHECKINS = "INSERT INTO key_result_checkins"
+            + " (key_result_id, objective_id, sheet_id, recorded_at, current_value, computed_progress, confidence_level)"
+            + " SELECT n.id, n.objective_id, o.sheet_id, COALESCE(n.created_at, CURRENT_TIMESTAMP), n.current_value,"
+            + "   n.computed_progress, n.confidence_level"
+            + " FROM created n JOIN objectives o ON o.id = n.objective_id";
+
+    // The "created" audit entry of the normal create paths, in either audit format
+    private static final String INSERT_AUDIT_PER_FIELD = "INSERT INTO audit_log"
+            + " (actor_user_id, entity_type, entity_id, field_name, new_value)"
+            + " SELECT :actor, '%s', n.id, 'created', n.title FROM created n WHERE n.title IS NOT NULL";
+
+    private static final String INSERT_AUDIT_COMPACT = "INSERT INTO audit_log"
+            + " (actor_user_id, entity_type, entity_id, changes)"
+            + " SELECT :actor, '%s', n.id, jsonb_build_object('created', jsonb_build_array(NULL, n.title))"
+            + " FROM created n WHERE n.title IS NOT NULL";
+
+    private static final String TARGET_SHEETS = "SELECT t.id FROM okr_sheets s JOIN okr_sheets t ON " + SAME_SCOPE
+            + " WHERE %s";
+
+    // Full recompute of the running aggregates the incremental rollup maintains (simple averages)
+    private static final String ROLLUP_OBJECTIVES = "UPDATE objectives o"
+            + " SET kr_count = a.n, kr_progress_sum = a.total,"
+            + "   computed_progress = CASE WHEN a.n = 0 THEN 0.0 ELSE a.total / a.n END"
+            + " FROM (SELECT x.id, count(k.id) AS n, COALESCE(sum(k.computed_progress), 0.0) AS total"
+            + "   FROM objectives x LEFT JOIN key_results k ON k.objective_id = x.id"
+            + "   WHERE x.sheet_id IN (" + TARGET_SHEETS + ") GROUP BY x.id) a"
+            + " WHERE o.id = a.id";
+
+    private static final String ROLLUP_SHEETS = "UPDATE okr_sheets sh"
+            + " SET objective_count = a.n, objective_progress_sum = a.total,"
+            + "   computed_overall_progress = CASE WHEN a.n = 0 THEN 0.0 ELSE a.total / a.n END,"
+            + "   version = sh.version + 1"
+            + " FROM (SELECT y.id, count(o.id) AS n, COALESCE(sum(o.computed_progress), 0.0) AS total"
+            + "   FROM okr_sheets y LEFT JOIN objectives o ON o.sheet_id = y.id"
+            + "   WHERE y.id IN (" + TARGET_SHEETS + ") GROUP BY y.id) a"
+            + " WHERE sh.id = a.id";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    @Autowired
+    private SheetSummaryCache summaryCache;
+
+    @Value("${app.auditFormat:per-field}")
+    private String auditFormat;
+
+    /**
+     * Must be called inside a transaction; the target cycle row is locked so concurrent rollovers
+     * into the same cycle run one after the other. Copied objectives and KRs are audited as
+     * created by {@code actorId}.
+     */
+    public CycleRolloverDto rollover(UUID targetCycleId, CycleRolloverRequest request, UUID actorId) {
+        UUID sourceCycleId = request.getSourceCycleId();
+        if (sourceCycleId == null || sourceCycleId.equals(targetCycleId)) {
+            throw new RuntimeException("Source cycle must be a different cycle");
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("source", sourceCycleId)
+                .addValue("target", targetCycleId)
+                .addValue("actor", actorId);
+        if (jdbcTemplate.queryForList("SELECT id FROM cycles WHERE id = :target FOR UPDATE", params, UUID.class).isEmpty()) {
+            throw new RuntimeException("Target cycle not found");
+        }
+        if (jdbcTemplate.queryForList("SELECT id FROM cycles WHERE id = :source", params, UUID.class).isEmpty()) {
+            throw new RuntimeException("Source cycle not found");
+        }
+
+        String selection = selection(request, params);
+        long started = System.currentTimeMillis();
+
+        CycleRolloverDto result = new CycleRolloverDto();
+        result.setSourceCycleId(sourceCycleId);
+        result.setTargetCycleId(targetCycleId);
+        result.setSheetsCreated(jdbcTemplate.update(String.format(INSERT_SHEETS, selection), params));
+        result.setObjectivesCreated(insertAudited(String.format(INSERT_OBJECTIVES, selection), "OBJECTIVE", params));
+        result.setKeyResultsCreated(insertAudited(String.format(INSERT_KEY_RESULTS, selection), "KEY_RESULT", params,
+                INSERT_CHECKINS));
+        if (result.getObjectivesCreated() > 0 || result.getKeyResultsCreated() > 0) {
+            jdbcTemplate.update(String.format(ROLLUP_OBJECTIVES, selection), params);
+            result.setSheetsUpdated(jdbcTemplate.update(String.format(ROLLUP_SHEETS, selection), params));
+        }
+        result.setDurationMs(System.currentTimeMillis() - started);
+
+        if (result.getSheetsCreated() > 0 || result.getSheetsUpdated() > 0) {
+            summaryCache.invalidateCycle(targetCycleId);
+        }
+        return result;
+    }
+
+    /**
+     * Runs {@code insert} together with its audit entries (and any further statements reading the
+     * inserted rows as {@code created}) as one statement, and returns the number of rows inserted.
+     */
+    private int insertAudited(String insert, String entityType, MapSqlParameterSource params, String... alsoFromCreated) {
+        String audit = String.format("compact".equalsIgnoreCase(auditFormat) ? INSERT_AUDIT_COMPACT : INSERT_AUDIT_PER_FIELD,
+                entityType);
+        StringBuilder sql = new StringBuilder("WITH created AS (").append(insert).append(")");
+        for (int i = 0; i < alsoFromCreated.length; i++) {
+            sql.append(", also").append(i).append(" AS (").append(alsoFromCreated[i]).append(")");
+        }
+        sql.append(", audited AS (").append(audit).append(") SELECT count(*) FROM created");
+        Integer inserted = jdbcTemplate.queryForObject(sql.toString(), params, Integer.class);
+        return inserted != null ? inserted : 0;
+    }
+
+    /**
+     * Condition on the source sheet {@code s}.
+     */
+    private static String selection(CycleRolloverRequest request, MapSqlParameterSource params) {
+        StringBuilder where = new StringBuilder("s.cycle_id = :source");
+        List<String> scopeTypes = request.getScopeTypes();
+        if (scopeTypes != null && !scopeTypes.isEmpty()) {
+            where.append(" AND s.scope_type IN (:scopeTypes)");
+            params.addValue("scopeTypes", scopeTypes);
+        }
+        List<UUID> sheetIds = request.getSheetIds();
+        if (sheetIds != null && !sheetIds.isEmpty()) {
+            where.append(" AND s.id IN (:sheetIds)");
+            params.addValue("sheetIds", sheetIds);
+        }
+        return where.toString();
+    }
+}
@@ -1,19 +1,13 @@
 package com.onnorokom.okr.service.impl;
 
 import com.onnorokom.okr.model.Cycle;
-import com.onnorokom.okr.model.Objective;
-import com.onnorokom.okr.model.OkrSheet;
 import com.onnorokom.okr.repository.CycleRepository;
-import com.onnorokom.okr.repository.KeyResultRepository;
-import com.onnorokom.okr.repository.ObjectiveRepository;
-import com.onnorokom.okr.repository.OkrSheetRepository;
 import com.onnorokom.okr.service.CycleService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
-import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -24,13 +18,10 @@ public class CycleServiceImpl implements CycleService {
     private CycleRepository cycleRepository;
 
     @Autowired
-    private OkrSheetRepository okrSheetRepository;
+    private CascadeDeleter cascadeDeleter;
 
     @Autowired
-    private ObjectiveRepository objectiveRepository;
-
-    @Autowired
-    private KeyResultRepository keyResultRepository;
+    private CycleRollover cycleRollover;
 
     @Override
     public Optional<Cycle> getActiveCycle() {
@@ -39,11 +30,15 @@ public class CycleServiceImpl implements CycleService {
 
     @Override
     public double calculateTimeProgress(Cycle cycle) {
+        return calculateTimeProgress(cycle, LocalDate.now());
+    }
+
+    @Override
+    public double calculateTimeProgress(Cycle cycle, LocalDate now) {
         long totalDays = calculateTotalDays(cycle);
         if (totalDays <= 0)
             return 1.0;
 
-        LocalDate now = LocalDate.now();
         if (now.isBefore(cycle.getStartDate()))
             return 0.0;
         if (now.isAfter(cycle.getEndDate()))
@@ -55,7 +50,11 @@ public class CycleServiceImpl implements CycleService {
 
     @Override
     public long calculateDaysRemaining(Cycle cycle) {
-        LocalDate now = LocalDate.now();
+        return calculateDaysRemaining(cycle, LocalDate.now());
+    }
+
+    @Override
+    public long calculateDaysRemaining(Cycle cycle, LocalDate now) {
         if (now.isAfter(cycle.getEndDate()))
             return 0;
         return ChronoUnit.DAYS.between(now, cycle.getEndDate());
@@ -100,26 +99,14 @@ public class CycleServiceImpl implements CycleService {
 
     @Override
     @Transactional
-    public void deleteCycle(UUID cycleId) {
-        Cycle cycle = cycleRepository.findById(cycleId)
-                .orElseThrow(() -> new RuntimeException("Cycle not found"));
-
-        // Get all OKR sheets for this cycle
-        List<OkrSheet> sheets = okrSheetRepository.findByCycleId(cycleId);
-
-        // Delete objectives and key results for each sheet
-        for (OkrSheet sheet : sheets) {
-            List<Objective> objectives = objectiveRepository.findBySheetId(sheet.getId());
-            for (Objective obj : objectives) {
-                keyResultRepository.deleteByObjectiveId(obj.getId());
-            }
-            objectiveRepository.deleteBySheetId(sheet.getId());
-        }
-
-        // Delete all OKR sheets
-        okrSheetRepository.deleteAll(sheets);
-
-        // Delete the cycle
-        cycleRepository.delete(cycle);
+    public com.onnorokom.okr.dto.CycleRolloverDto rollover(UUID targetCycleId,
+            com.onnorokom.okr.dto.CycleRolloverRequest request, UUID actorId) {
+        return cycleRollover.rollover(targetCycleId, request, actorId);
+    }
+
+    @Override
+    @Transactional
+    public com.onnorokom.okr.dto.DeletionReportDto deleteCycle(UUID cycleId, boolean dryRun) {
+        return cascadeDeleter.deleteCycle(cycleId, dryRun);
     }
 }
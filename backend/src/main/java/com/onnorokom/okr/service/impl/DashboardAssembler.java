@@ -0,0 +1,394 @@
+package com.onnorokom.okr.service.impl;
+
+import com.onnorokom.okr.dto.DashboardDto;
+import com.onnorokom.okr.dto.DashboardMemberPageDto;
+import com.onnorokom.okr.dto.HierarchicalDashboardDto;
+import com.onnorokom.okr.dto.SheetSummaryDto;
+import com.onnorokom.okr.model.*;
+import com.onnorokom.okr.repository.*;
+import com.onnorokom.okr.security.UserPrincipal;
+import com.onnorokom.okr.service.CycleService;
+import com.onnorokom.okr.service.PermissionService;
+import com.onnorokom.okr.service.RollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Dashboard assembly engine.
+ *
+ * Loads every sheet, objective preview, department and member a dashboard needs with a fixed
+ * number of set-based queries and builds the tree in memory, so the number of round trips does
+ * not grow with the number of teams, departments or members.
+ */
+@Component
+public class DashboardAssembler {
+
+    static final int PREVIEW_OBJECTIVES = 3;
+
+    @Autowired
+    private OkrSheetRepository sheetRepository;
+    @Autowired
+    private ObjectiveRepository objectiveRepository;
+    @Autowired
+    private TeamRepository teamRepository;
+    @Autowired
+    private DepartmentRepository departmentRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CycleService cycleService;
+    @Autowired
+    private SheetSummaryCache summaryCache;
+    @Autowired
+    private PermissionService permissionService;
+    @Autowired
+    private RollupService rollupService;
+
+    public HierarchicalDashboardDto assembleHierarchical(UserPrincipal user, Cycle cycle, boolean seesOrganisation) {
+        UUID cycleId = cycle.getId();
+        HierarchicalDashboardDto dashboard = new HierarchicalDashboardDto();
+
+        // 1. Org structure in bulk: teams -> departments -> members
+        List<Team> teams = visibleTeams(user, seesOrganisation);
+        List<Department> departments = visibleDepartments(user, teams, seesOrganisation);
+        List<User> members = List.of();
+        if (seesOrganisation && !departments.isEmpty()) {
+            members = userRepository.findByDepartmentIdIn(ids(departments, Department::getId));
+        }
+
+        // 2. Every sheet of the cycle the tree can reference, in one query
+        Set<UUID> scopeIds = new HashSet<>();
+        teams.forEach(t -> scopeIds.add(t.getId()));
+        departments.forEach(d -> scopeIds.add(d.getId()));
+        members.forEach(m -> scopeIds.add(m.getId()));
+        scopeIds.add(user.getId());
+
+        List<OkrSheet> sheets = new ArrayList<>(sheetRepository.findByCycleIdAndScopeType(cycleId, "COMPANY"));
+        sheets.addAll(sheetRepository.findByCycleIdAndScopeIdIn(cycleId, scopeIds));
+        Map<UUID, SheetSummaryDto> summaries = summarize(user, sheets, cycle);
+        Map<String, List<OkrSheet>> byScope = indexByScope(sheets);
+
+        // 3. Stitch the tree together
+        for (OkrSheet s : sheetsFor(byScope, "COMPANY", null)) {
+            dashboard.getCompanyOkrs().add(titled(summaries.get(s.getId()), "Company OKR"));
+        }
+
+        Map<UUID, List<Department>> departmentsByTeam = new HashMap<>();
+        for (Department dept : departments) {
+            departmentsByTeam.computeIfAbsent(dept.getTeam().getId(), k -> new ArrayList<>()).add(dept);
+        }
+        Map<UUID, List<User>> membersByDepartment = new HashMap<>();
+        for (User member : members) {
+            membersByDepartment.computeIfAbsent(member.getDepartment().getId(), k -> new ArrayList<>()).add(member);
+        }
+
+        for (Team team : teams) {
+            HierarchicalDashboardDto.TeamNode teamNode = new HierarchicalDashboardDto.TeamNode();
+            teamNode.setId(team.getId().toString());
+            teamNode.setName(team.getName());
+            OkrSheet teamSheet = firstSheet(byScope, "TEAM", team.getId());
+            if (teamSheet != null) {
+                teamNode.setTeamOkr(titled(summaries.get(teamSheet.getId()), team.getName() + " OKR"));
+            }
+
+            for (Department dept : departmentsByTeam.getOrDefault(team.getId(), List.of())) {
+                HierarchicalDashboardDto.DepartmentNode deptNode = new HierarchicalDashboardDto.DepartmentNode();
+                deptNode.setId(dept.getId().toString());
+                deptNode.setName(dept.getName());
+                OkrSheet deptSheet = firstSheet(byScope, "DEPARTMENT", dept.getId());
+                if (deptSheet != null) {
+                    deptNode.setDepartmentOkr(titled(summaries.get(deptSheet.getId()), dept.getName() + " OKR"));
+                }
+
+                for (User member : membersByDepartment.getOrDefault(dept.getId(), List.of())) {
+                    if (member.getId().equals(user.getId())) continue; // Skip self, will be shown separately
+                    deptNode.getMembers().add(mapMember(member, byScope, summaries));
+                }
+                teamNode.getDepartments().add(deptNode);
+            }
+            dashboard.getTeams().add(teamNode);
+        }
+
+        // 4. My Personal OKR (always shown separately)
+        OkrSheet personal = firstSheet(byScope, "PERSONAL", user.getId());
+        if (personal != null) {
+            dashboard.setMyPersonalOkr(titled(summaries.get(personal.getId()), "My OKRs"));
+        }
+        return dashboard;
+    }
+
+    public DashboardDto assembleFlat(UserPrincipal user, Cycle cycle, boolean seesOrganisation) {
+        UUID cycleId = cycle.getId();
+
+        List<Team> teams = visibleTeams(user, seesOrganisation);
+        List<Department> departments = visibleDepartments(user, teams, seesOrganisation);
+
+        Set<UUID> scopeIds = new HashSet<>();
+        teams.forEach(t -> scopeIds.add(t.getId()));
+        departments.forEach(d -> scopeIds.add(d.getId()));
+        scopeIds.add(user.getId());
+
+        List<OkrSheet> sheets = new ArrayList<>(sheetRepository.findByCycleIdAndScopeType(cycleId, "COMPANY"));
+        sheets.addAll(sheetRepository.findByCycleIdAndScopeIdIn(cycleId, scopeIds));
+        Map<UUID, SheetSummaryDto> summaries = summarize(user, sheets, cycle);
+        Map<String, List<OkrSheet>> byScope = indexByScope(sheets);
+
+        List<SheetSummaryDto> cards = new ArrayList<>();
+        sheetsFor(byScope, "COMPANY", null).forEach(s -> cards.add(titled(summaries.get(s.getId()), "Company")));
+        for (Team team : teams) {
+            sheetsFor(byScope, "TEAM", team.getId()).forEach(s -> cards.add(titled(summaries.get(s.getId()), team.getName())));
+        }
+        for (Department dept : departments) {
+            sheetsFor(byScope, "DEPARTMENT", dept.getId()).forEach(s -> cards.add(titled(summaries.get(s.getId()), dept.getName())));
+        }
+        sheetsFor(byScope, "PERSONAL", user.getId()).forEach(s -> cards.add(titled(summaries.get(s.getId()), "My OKRs")));
+
+        DashboardDto dashboard = new DashboardDto();
+        dashboard.setSheets(cards);
+        return dashboard;
+    }
+
+    /**
+     * First paint of the lazy dashboard: company cards, team cards (without departments) and the
+     * caller's personal card. Cost does not depend on headcount.
+     */
+    public HierarchicalDashboardDto assembleTopLevel(UserPrincipal user, Cycle cycle, boolean seesOrganisation) {
+        UUID cycleId = cycle.getId();
+        HierarchicalDashboardDto dashboard = new HierarchicalDashboardDto();
+
+        List<Team> teams = visibleTeams(user, seesOrganisation);
+        Set<UUID> scopeIds = ids(teams, Team::getId);
+        scopeIds.add(user.getId());
+
+        List<OkrSheet> sheets = new ArrayList<>(sheetRepository.findByCycleIdAndScopeType(cycleId, "COMPANY"));
+        sheets.addAll(sheetRepository.findByCycleIdAndScopeIdIn(cycleId, scopeIds));
+        Map<UUID, SheetSummaryDto> summaries = summarize(user, sheets, cycle);
+        Map<String, List<OkrSheet>> byScope = indexByScope(sheets);
+
+        for (OkrSheet s : sheetsFor(byScope, "COMPANY", null)) {
+            dashboard.getCompanyOkrs().add(titled(summaries.get(s.getId()), "Company OKR"));
+        }
+        for (Team team : teams) {
+            HierarchicalDashboardDto.TeamNode teamNode = new HierarchicalDashboardDto.TeamNode();
+            teamNode.setId(team.getId().toString());
+            teamNode.setName(team.getName());
+            OkrSheet teamSheet = firstSheet(byScope, "TEAM", team.getId());
+            if (teamSheet != null) {
+                teamNode.setTeamOkr(titled(summaries.get(teamSheet.getId()), team.getName() + " OKR"));
+            }
+            dashboard.getTeams().add(teamNode);
+        }
+
+        OkrSheet personal = firstSheet(byScope, "PERSONAL", user.getId());
+        if (personal != null) {
+            dashboard.setMyPersonalOkr(titled(summaries.get(personal.getId()), "My OKRs"));
+        }
+        return dashboard;
+    }
+
+    /**
+     * Department nodes (without members) of one team, restricted to what the caller may see.
+     */
+    public List<HierarchicalDashboardDto.DepartmentNode> assembleDepartments(UserPrincipal user, Cycle cycle, UUID teamId,
+            boolean seesOrganisation) {
+        List<Department> departments;
+        if (seesOrganisation) {
+            departments = departmentRepository.findByTeamId(teamId);
+        } else if (teamId.equals(user.getTeamId())) {
+            departments = visibleDepartments(user, List.of(), false).stream()
+                    .filter(d -> teamId.equals(d.getTeam().getId()))
+                    .toList();
+        } else {
+            departments = List.of();
+        }
+        if (departments.isEmpty()) {
+            return List.of();
+        }
+
+        // The whole subtree is one closure query; otherwise just the caller's own department
+        List<OkrSheet> sheets = seesOrganisation
+                ? sheetRepository.findByCycleIdAndScopeTypeUnderScope(cycle.getId(), "DEPARTMENT", teamId)
+                : sheetRepository.findByCycleIdAndScopeIdIn(cycle.getId(), ids(departments, Department::getId));
+        Map<UUID, SheetSummaryDto> summaries = summarize(user, sheets, cycle);
+        Map<String, List<OkrSheet>> byScope = indexByScope(sheets);
+
+        List<HierarchicalDashboardDto.DepartmentNode> nodes = new ArrayList<>();
+        for (Department dept : departments) {
+            HierarchicalDashboardDto.DepartmentNode deptNode = new HierarchicalDashboardDto.DepartmentNode();
+            deptNode.setId(dept.getId().toString());
+            deptNode.setName(dept.getName());
+            OkrSheet deptSheet = firstSheet(byScope, "DEPARTMENT", dept.getId());
+            if (deptSheet != null) {
+                deptNode.setDepartmentOkr(titled(summaries.get(deptSheet.getId()), dept.getName() + " OKR"));
+            }
+            nodes.add(deptNode);
+        }
+        return nodes;
+    }
+
+    /**
+     * One keyset page of department members ordered by email. {@code afterEmail} is the
+     * {@code nextCursor} of the previous page, or null for the first page. Members are only
+     * listed for ORG_LEADERSHIP and SUPER_ADMIN, as in the full tree.
+     */
+    public DashboardMemberPageDto assembleMembers(UserPrincipal user, Cycle cycle, UUID departmentId, String afterEmail,
+            int limit, boolean seesOrganisation) {
+        DashboardMemberPageDto page = new DashboardMemberPageDto();
+        if (!seesOrganisation) {
+            return page;
+        }
+
+        List<User> members = userRepository.findByDepartmentIdAndIdNotAndEmailGreaterThanOrderByEmailAsc(
+                departmentId, user.getId(), afterEmail != null ? afterEmail : "", PageRequest.of(0, limit + 1));
+        if (members.size() > limit) {
+            members = members.subList(0, limit);
+            page.setNextCursor(members.get(limit - 1).getEmail());
+        }
+        if (members.isEmpty()) {
+            return page;
+        }
+
+        List<OkrSheet> sheets = sheetRepository.findByCycleIdAndScopeIdIn(cycle.getId(), ids(members, User::getId));
+        Map<UUID, SheetSummaryDto> summaries = summarize(user, sheets, cycle);
+        Map<String, List<OkrSheet>> byScope = indexByScope(sheets);
+        for (User member : members) {
+            page.getMembers().add(mapMember(member, byScope, summaries));
+        }
+        return page;
+    }
+
+    /**
+     * Builds an untitled summary card per sheet. Cards come from {@link SheetSummaryCache} where
+     * possible; objective previews for the remaining sheets come from a single windowed query.
+     */
+    Map<UUID, SheetSummaryDto> summarize(UserPrincipal user, Collection<OkrSheet> sheets, Cycle cycle) {
+        Map<UUID, SheetSummaryDto> summaries = new LinkedHashMap<>();
+        if (sheets.isEmpty()) {
+            return summaries;
+        }
+
+        UUID cycleId = cycle.getId();
+        double timeProgress = cycleService.calculateTimeProgress(cycle);
+        long daysRemaining = cycleService.calculateDaysRemaining(cycle);
+        long totalDays = cycleService.calculateTotalDays(cycle);
+
+        // Async rollup: recompute only these sheets if still queued, then re-read their progress as
+        // scalars, since the entities were loaded before the recompute
+        Map<UUID, Double> flushedProgress = new HashMap<>();
+        Set<UUID> flushed = rollupService.flushPending(ids(sheets, OkrSheet::getId));
+        if (!flushed.isEmpty()) {
+            sheetRepository.findRollupRowsByIdIn(flushed)
+                    .forEach(row -> flushedProgress.put(row.getId(), row.getComputedProgress()));
+        }
+
+        long generation = summaryCache.generation();
+        Map<UUID, SheetSummaryDto> loaded = new HashMap<>();
+        for (OkrSheet sheet : sheets) {
+            SheetSummaryDto dto = summaryCache.get(cycleId, sheet.getId());
+            if (dto == null) {
+                dto = new SheetSummaryDto();
+                dto.setId(sheet.getId());
+                dto.setScopeType(sheet.getScopeType());
+                dto.setScopeId(sheet.getScopeId());
+                dto.setObjectives(new ArrayList<>());
+                loaded.put(sheet.getId(), dto);
+            }
+            dto.setComputedOverallProgress(flushedProgress.getOrDefault(sheet.getId(), sheet.getComputedOverallProgress()));
+            dto.setComputedTimeProgress(timeProgress);
+            dto.setDaysRemaining(daysRemaining);
+            dto.setTotalDays(totalDays);
+            summaries.put(sheet.getId(), dto);
+        }
+
+        if (!loaded.isEmpty()) {
+            for (Objective o : objectiveRepository.findPreviewsBySheetIdIn(loaded.keySet(), PREVIEW_OBJECTIVES)) {
+                SheetSummaryDto dto = loaded.get(o.getSheet().getId());
+                if (dto == null) continue;
+                SheetSummaryDto.ObjectiveSummaryDto os = new SheetSummaryDto.ObjectiveSummaryDto();
+                os.setTitle(o.getTitle());
+                os.setProgress(o.getComputedProgress());
+                dto.getObjectives().add(os);
+            }
+            loaded.forEach((sheetId, dto) -> summaryCache.put(cycleId, sheetId, dto, generation));
+        }
+
+        // Edit badges are per user, so they are applied after caching, in one bulk evaluation
+        permissionService.evaluateSheets(user, sheets)
+                .forEach((sheetId, access) -> summaries.get(sheetId).setCanEdit(access.isCanManage()));
+        return summaries;
+    }
+
+    private List<Team> visibleTeams(UserPrincipal user, boolean seesOrganisation) {
+        if (seesOrganisation) {
+            return teamRepository.findAll();
+        } else if (user.getTeamId() != null) {
+            return teamRepository.findById(user.getTeamId()).map(List::of).orElse(List.of());
+        }
+        return List.of();
+    }
+
+    private List<Department> visibleDepartments(UserPrincipal user, List<Team> teams, boolean seesOrganisation) {
+        if (seesOrganisation) {
+            return teams.isEmpty() ? List.of() : departmentRepository.findByTeamIdIn(ids(teams, Team::getId));
+        }
+        // Everyone else sees their own department, even without a team
+        if (user.getDepartmentId() != null) {
+            return departmentRepository.findById(user.getDepartmentId()).map(List::of).orElse(List.of());
+        }
+        return List.of();
+    }
+
+    private HierarchicalDashboardDto.MemberNode mapMember(User member, Map<String, List<OkrSheet>> byScope,
+            Map<UUID, SheetSummaryDto> summaries) {
+        HierarchicalDashboardDto.MemberNode memberNode = new HierarchicalDashboardDto.MemberNode();
+        memberNode.setId(member.getId().toString());
+        memberNode.setName(member.getName() != null ? member.getName() : member.getEmail());
+        memberNode.setEmail(member.getEmail());
+
+        OkrSheet memberSheet = firstSheet(byScope, "PERSONAL", member.getId());
+        if (memberSheet != null) {
+            memberNode.setPersonalOkr(titled(summaries.get(memberSheet.getId()),
+                    member.getName() != null ? member.getName() : "Personal OKR"));
+        }
+        return memberNode;
+    }
+
+    private static SheetSummaryDto titled(SheetSummaryDto summary, String title) {
+        summary.setTitle(title);
+        return summary;
+    }
+
+    private static Map<String, List<OkrSheet>> indexByScope(List<OkrSheet> sheets) {
+        Map<String, List<OkrSheet>> byScope = new HashMap<>();
+        for (OkrSheet sheet : sheets) {
+            String key = "COMPANY".equals(sheet.getScopeType())
+                    ? scopeKey("COMPANY", null)
+                    : scopeKey(sheet.getScopeType(), sheet.getScopeId());
+            byScope.computeIfAbsent(key, k -> new ArrayList<>()).add(sheet);
+        }
+        return byScope;
+    }
+
+    private static List<OkrSheet> sheetsFor(Map<String, List<OkrSheet>> byScope, String scopeType, UUID scopeId) {
+        return byScope.getOrDefault(scopeKey(scopeType, scopeId), List.of());
+    }
+
+    private static OkrSheet firstSheet(Map<String, List<OkrSheet>> byScope, String scopeType, UUID scopeId) {
+        List<OkrSheet> sheets = sheetsFor(byScope, scopeType, scopeId);
+        return sheets.isEmpty() ? null : sheets.get(0);
+    }
+
+    private static String scopeKey(String scopeType, UUID scopeId) {
+        return scopeType + ":" + scopeId;
+    }
+
+    private static <T> Set<UUID> ids(Collection<T> entities, Function<T, UUID> id) {
+        Set<UUID> ids = new HashSet<>();
+        entities.forEach(e -> ids.add(id.apply(e)));
+        return ids;
+    }
+}
@@ -3,18 +3,25 @@ package com.onnorokom.okr.service.impl;
 import com.onnorokom.okr.dto.*;
 import com.onnorokom.okr.model.*;
 import com.onnorokom.okr.repository.*;
+import com.onnorokom.okr.security.UserPrincipal;
 import com.onnorokom.okr.service.*;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 public class OkrServiceImpl implements OkrService {
 
+    private static final int MAX_MEMBER_PAGE_SIZE = 200;
+
     @Autowired
     private OkrSheetRepository sheetRepository;
     @Autowired
@@ -35,188 +42,181 @@ public class OkrServiceImpl implements OkrService {
     private DepartmentRepository departmentRepository;
     @Autowired
     private PermissionService permissionService;
+    @Autowired
+    private DashboardAssembler dashboardAssembler;
+    @Autowired
+    private RollupService rollupService;
+    @Autowired
+    private ProgressHistoryService progressHistoryService;
+    @Autowired
+    private SheetTimeTravel sheetTimeTravel;
 
     @Override
-    public DashboardDto getDashboard(User user) {
+    public DashboardDto getDashboard(UserPrincipal user) {
         Optional<Cycle> cycleOpt = cycleService.getActiveCycle();
         if (cycleOpt.isEmpty()) {
             return new DashboardDto();
         }
-        Cycle cycle = cycleOpt.get();
-        UUID cycleId = cycle.getId();
-
-        List<SheetSummaryDto> summaries = new ArrayList<>();
 
-        // Check if user is ORG_LEADERSHIP or SUPER_ADMIN (they see everything)
+        // ORG_LEADERSHIP and SUPER_ADMIN see all team and department cards.
+        // Everyone only sees their own personal OKR.
         boolean isOrgLeadershipOrAdmin = permissionService.isSuperAdmin(user) || permissionService.isOrgLeadership(user);
+        return dashboardAssembler.assembleFlat(user, cycleOpt.get(), isOrgLeadershipOrAdmin);
+    }
 
-        // 1. Company OKRs (visible to all)
-        List<OkrSheet> companySheets = sheetRepository.findByCycleIdAndScopeType(cycleId, "COMPANY");
-        companySheets.forEach(s -> summaries.add(mapToSummary(s, "Company", cycle)));
-
-        // 2. Team OKRs
-        if (isOrgLeadershipOrAdmin) {
-            // ORG_LEADERSHIP and SUPER_ADMIN see ALL team cards
-            List<Team> allTeams = teamRepository.findAll();
-            for (Team team : allTeams) {
-                List<OkrSheet> teamSheets = sheetRepository.findByCycleIdAndScopeTypeAndScopeId(cycleId, "TEAM", team.getId());
-                teamSheets.forEach(s -> summaries.add(mapToSummary(s, team.getName(), cycle)));
-            }
-        } else if (user.getTeam() != null) {
-            // Regular users only see their own team
-            List<OkrSheet> teamSheets = sheetRepository.findByCycleIdAndScopeTypeAndScopeId(cycleId, "TEAM", user.getTeam().getId());
-            teamSheets.forEach(s -> summaries.add(mapToSummary(s, user.getTeam().getName(), cycle)));
-        }
-
-        // 3. Department OKRs
-        if (isOrgLeadershipOrAdmin) {
-            // ORG_LEADERSHIP and SUPER_ADMIN see ALL department cards
-            List<Department> allDepts = departmentRepository.findAll();
-            for (Department dept : allDepts) {
-                List<OkrSheet> deptSheets = sheetRepository.findByCycleIdAndScopeTypeAndScopeId(cycleId, "DEPARTMENT", dept.getId());
-                deptSheets.forEach(s -> summaries.add(mapToSummary(s, dept.getName(), cycle)));
-            }
-        } else if (user.getDepartment() != null) {
-            // Regular users only see their own department
-            List<OkrSheet> deptSheets = sheetRepository.findByCycleIdAndScopeTypeAndScopeId(cycleId, "DEPARTMENT", user.getDepartment().getId());
-            deptSheets.forEach(s -> summaries.add(mapToSummary(s, user.getDepartment().getName(), cycle)));
+    @Override
+    public HierarchicalDashboardDto getHierarchicalDashboard(UserPrincipal user) {
+        Optional<Cycle> cycleOpt = cycleService.getActiveCycle();
+        if (cycleOpt.isEmpty()) {
+            return new HierarchicalDashboardDto();
         }
 
-        // 4. Personal OKRs - Everyone only sees their own personal OKR
-        // Super Admin and Org Leadership see Company/Team/Department OKRs but NOT other employees' personal OKRs
-        List<OkrSheet> personalSheets = sheetRepository.findByCycleIdAndScopeTypeAndScopeId(cycleId, "PERSONAL", user.getId());
-        personalSheets.forEach(s -> summaries.add(mapToSummary(s, "My OKRs", cycle)));
-
-        DashboardDto dashboard = new DashboardDto();
-        dashboard.setSheets(summaries);
-        return dashboard;
+        boolean isOrgLeadershipOrAdmin = permissionService.isSuperAdmin(user) || permissionService.isOrgLeadership(user);
+        return dashboardAssembler.assembleHierarchical(user, cycleOpt.get(), isOrgLeadershipOrAdmin);
     }
 
     @Override
-    public HierarchicalDashboardDto getHierarchicalDashboard(User user) {
+    public HierarchicalDashboardDto getDashboardTopLevel(UserPrincipal user) {
         Optional<Cycle> cycleOpt = cycleService.getActiveCycle();
         if (cycleOpt.isEmpty()) {
             return new HierarchicalDashboardDto();
         }
-        Cycle cycle = cycleOpt.get();
-        UUID cycleId = cycle.getId();
-
-        HierarchicalDashboardDto dashboard = new HierarchicalDashboardDto();
 
         boolean isOrgLeadershipOrAdmin = permissionService.isSuperAdmin(user) || permissionService.isOrgLeadership(user);
+        return dashboardAssembler.assembleTopLevel(user, cycleOpt.get(), isOrgLeadershipOrAdmin);
+    }
 
-        // 1. Company OKRs (visible to all at top level)
-        List<OkrSheet> companySheets = sheetRepository.findByCycleIdAndScopeType(cycleId, "COMPANY");
-        companySheets.forEach(s -> dashboard.getCompanyOkrs().add(mapToSummary(s, "Company OKR", cycle)));
-
-        // 2. Build Team hierarchy
-        List<Team> teams;
-        if (isOrgLeadershipOrAdmin) {
-            teams = teamRepository.findAll();
-        } else if (user.getTeam() != null) {
-            teams = List.of(user.getTeam());
-        } else {
-            teams = List.of();
+    @Override
+    public List<HierarchicalDashboardDto.DepartmentNode> getDashboardDepartments(UserPrincipal user, UUID teamId) {
+        Optional<Cycle> cycleOpt = cycleService.getActiveCycle();
+        if (cycleOpt.isEmpty()) {
+            return List.of();
         }
 
-        for (Team team : teams) {
-            HierarchicalDashboardDto.TeamNode teamNode = new HierarchicalDashboardDto.TeamNode();
-            teamNode.setId(team.getId().toString());
-            teamNode.setName(team.getName());
-
-            // Team OKR
-            List<OkrSheet> teamSheets = sheetRepository.findByCycleIdAndScopeTypeAndScopeId(cycleId, "TEAM", team.getId());
-            if (!teamSheets.isEmpty()) {
-                teamNode.setTeamOkr(mapToSummary(teamSheets.get(0), team.getName() + " OKR", cycle));
-            }
+        boolean isOrgLeadershipOrAdmin = permissionService.isSuperAdmin(user) || permissionService.isOrgLeadership(user);
+        return dashboardAssembler.assembleDepartments(user, cycleOpt.get(), teamId, isOrgLeadershipOrAdmin);
+    }
 
-            // Departments under this team
-            List<Department> departments;
-            if (isOrgLeadershipOrAdmin) {
-                departments = departmentRepository.findByTeamId(team.getId());
-            } else if (user.getDepartment() != null && user.getDepartment().getTeam().getId().equals(team.getId())) {
-                departments = List.of(user.getDepartment());
-            } else {
-                departments = List.of();
-            }
+    @Override
+    public DashboardMemberPageDto getDashboardMembers(UserPrincipal user, UUID departmentId, String afterEmail, int limit) {
+        Optional<Cycle> cycleOpt = cycleService.getActiveCycle();
+        if (cycleOpt.isEmpty()) {
+            return new DashboardMemberPageDto();
+        }
 
-            for (Department dept : departments) {
-                HierarchicalDashboardDto.DepartmentNode deptNode = new HierarchicalDashboardDto.DepartmentNode();
-                deptNode.setId(dept.getId().toString());
-                deptNode.setName(dept.getName());
-
-                // Department OKR
-                List<OkrSheet> deptSheets = sheetRepository.findByCycleIdAndScopeTypeAndScopeId(cycleId, "DEPARTMENT", dept.getId());
-                if (!deptSheets.isEmpty()) {
-                    deptNode.setDepartmentOkr(mapToSummary(deptSheets.get(0), dept.getName() + " OKR", cycle));
-                }
-
-                // Members under this department (only for admins, and exclude current user's personal OKR here)
-                if (isOrgLeadershipOrAdmin) {
-                    List<User> members = userRepository.findByDepartmentId(dept.getId());
-                    for (User member : members) {
-                        if (member.getId().equals(user.getId())) continue; // Skip self, will be shown separately
-
-                        HierarchicalDashboardDto.MemberNode memberNode = new HierarchicalDashboardDto.MemberNode();
-                        memberNode.setId(member.getId().toString());
-                        memberNode.setName(member.getName() != null ? member.getName() : member.getEmail());
-                        memberNode.setEmail(member.getEmail());
-
-                        List<OkrSheet> memberSheets = sheetRepository.findByCycleIdAndScopeTypeAndScopeId(cycleId, "PERSONAL", member.getId());
-                        if (!memberSheets.isEmpty()) {
-                            memberNode.setPersonalOkr(mapToSummary(memberSheets.get(0), member.getName() != null ? member.getName() : "Personal OKR", cycle));
-                        }
-                        deptNode.getMembers().add(memberNode);
-                    }
-                }
-
-                teamNode.getDepartments().add(deptNode);
-            }
+        int pageSize = Math.max(1, Math.min(limit, MAX_MEMBER_PAGE_SIZE));
+        boolean isOrgLeadershipOrAdmin = permissionService.isSuperAdmin(user) || permissionService.isOrgLeadership(user);
+        return dashboardAssembler.assembleMembers(user, cycleOpt.get(), departmentId, afterEmail, pageSize,
+                isOrgLeadershipOrAdmin);
+    }
 
-            dashboard.getTeams().add(teamNode);
+    @Override
+    public List<SheetSummaryDto> getEditableSheets(UserPrincipal user) {
+        Optional<Cycle> cycleOpt = cycleService.getActiveCycle();
+        if (cycleOpt.isEmpty()) {
+            return List.of();
         }
+        UUID cycleId = cycleOpt.get().getId();
+
+        // Admin scopes are resolved through the org closure, so the query does not list every member
+        AclIndex.EditableScopes scopes = permissionService.editableScopes(user);
+        List<OkrSheet> sheets;
+        if (scopes == null) {
+            sheets = sheetRepository.findByCycleId(cycleId);
+        } else if (scopes.subtrees().isEmpty()) {
+            sheets = sheetRepository.findByCycleIdAndScopeIdIn(cycleId, scopes.scopeIds());
+        } else {
+            sheets = sheetRepository.findByCycleIdUnderScopes(cycleId, scopes.subtrees(), scopes.scopeIds());
+        }
+        return new ArrayList<>(dashboardAssembler.summarize(user, sheets, cycleOpt.get()).values());
+    }
 
-        // 3. My Personal OKR (always shown separately)
-        List<OkrSheet> personalSheets = sheetRepository.findByCycleIdAndScopeTypeAndScopeId(cycleId, "PERSONAL", user.getId());
-        if (!personalSheets.isEmpty()) {
-            dashboard.setMyPersonalOkr(mapToSummary(personalSheets.get(0), "My OKRs", cycle));
+    @Override
+    public String getDashboardETag(String principal) {
+        Optional<Cycle> cycleOpt = cycleService.getActiveCycle();
+        if (cycleOpt.isEmpty()) {
+            return etag("dashboard", principal, "no-cycle");
         }
+        UUID cycleId = cycleOpt.get().getId();
+        OkrSheetRepository.CycleVersion version = sheetRepository.findCycleVersion(cycleId);
+        // An async write changes the pending digest at once and the version when its rollup lands, so
+        // a writer re-polling right away gets the new page. The ACL version covers canEdit badges and
+        // org structure; the day covers time progress
+        return etag("dashboard", principal, cycleId, version.getSheetCount(), version.getVersionSum(),
+                version.getIdDigest(), version.getPendingDigest(), permissionService.aclVersion(), LocalDate.now());
+    }
 
-        return dashboard;
+    @Override
+    public String getSheetETag(UUID sheetId, String principal) {
+        rollupService.flushPending(sheetId);
+        Long version = sheetRepository.findVersionById(sheetId).orElseThrow(() -> new RuntimeException("Sheet not found"));
+        // canEdit flags are per user and follow the ACL version, time progress is per day
+        return etag("sheet", principal, sheetId, version, permissionService.aclVersion(), LocalDate.now());
     }
 
-    private SheetSummaryDto mapToSummary(OkrSheet sheet, String titleFallback, Cycle cycle) {
-        SheetSummaryDto dto = new SheetSummaryDto();
-        dto.setId(sheet.getId());
-        dto.setScopeType(sheet.getScopeType());
-        dto.setScopeId(sheet.getScopeId());
-        dto.setTitle(titleFallback);
+    private static String etag(Object... parts) {
+        String joined = Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining("|"));
+        return "\"" + DigestUtils.md5DigestAsHex(joined.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
 
-        dto.setComputedOverallProgress(sheet.getComputedOverallProgress());
-        dto.setComputedTimeProgress(cycleService.calculateTimeProgress(cycle));
-        dto.setDaysRemaining(cycleService.calculateDaysRemaining(cycle));
-        dto.setTotalDays(cycleService.calculateTotalDays(cycle));
-
-        // Get Top Objectives for preview
-        List<Objective> objs = objectiveRepository.findBySheetIdOrderBySortOrderAsc(sheet.getId());
-        List<SheetSummaryDto.ObjectiveSummaryDto> objSummaries = objs.stream().limit(3).map(o -> {
-            SheetSummaryDto.ObjectiveSummaryDto os = new SheetSummaryDto.ObjectiveSummaryDto();
-            os.setTitle(o.getTitle());
-            os.setProgress(o.getComputedProgress());
-            return os;
-        }).collect(Collectors.toList());
-        dto.setObjectives(objSummaries);
+    @Override
+    public SheetDetailDto getSheetDetails(UUID sheetId, UserPrincipal currentUser) {
+        rollupService.flushPending(sheetId);
+        OkrSheet sheet = sheetRepository.findById(sheetId).orElseThrow(() -> new RuntimeException("Sheet not found"));
+
+        SheetDetailDto dto = mapSheetHeader(sheet);
+        dto.setCanEdit(permissionService.canEditSheet(currentUser, sheet));
+
+        // Objectives, with all of the sheet's KRs loaded and permission-checked in bulk
+        List<Objective> objectives = objectiveRepository.findBySheetIdOrderBySortOrderAsc(sheetId);
+        List<KeyResult> krs = krRepository.findByObjectiveSheetIdOrderBySortOrderAsc(sheetId);
+        Map<UUID, AccessDto> access = permissionService.evaluateKeyResults(currentUser, krs);
+        Map<UUID, List<KeyResultDto>> krsByObjective = new HashMap<>();
+        for (KeyResult kr : krs) {
+            krsByObjective.computeIfAbsent(kr.getObjective().getId(), k -> new ArrayList<>())
+                    .add(mapKeyResult(kr, access.get(kr.getId()).isCanManage()));
+        }
+        dto.setObjectives(objectives.stream()
+                .map(obj -> mapObjective(obj, krsByObjective.getOrDefault(obj.getId(), new ArrayList<>())))
+                .collect(Collectors.toList()));
 
         return dto;
     }
 
     @Override
-    public SheetDetailDto getSheetDetails(UUID sheetId) {
+    @Transactional(readOnly = true)
+    public PermissionCheckDto checkPermissions(PermissionCheckRequest request, UserPrincipal actor) {
+        PermissionCheckDto result = new PermissionCheckDto();
+        if (request.getSheetIds() != null && !request.getSheetIds().isEmpty()) {
+            List<OkrSheet> sheets = sheetRepository.findAllById(new HashSet<>(request.getSheetIds()));
+            result.getSheets().addAll(permissionService.evaluateSheets(actor, sheets).values());
+        }
+        if (request.getKeyResultIds() != null && !request.getKeyResultIds().isEmpty()) {
+            List<KeyResult> krs = krRepository.findWithObjectiveByIdIn(new HashSet<>(request.getKeyResultIds()));
+            result.getKeyResults().addAll(permissionService.evaluateKeyResults(actor, krs).values());
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SheetDetailDto getSheetDetailsAsOf(UUID sheetId, Instant at) {
         OkrSheet sheet = sheetRepository.findById(sheetId).orElseThrow(() -> new RuntimeException("Sheet not found"));
         Cycle cycle = sheet.getCycle();
 
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User currentUser = userRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
+        SheetTimeTravel.Reconstruction past = sheetTimeTravel.reconstruct(sheetId, at);
+
+        SheetDetailDto dto = mapSheetHeader(sheet);
+        LocalDate day = LocalDate.ofInstant(at, ZoneId.systemDefault());
+        dto.setComputedOverallProgress(past.overallProgress());
+        dto.setComputedTimeProgress(cycleService.calculateTimeProgress(cycle, day));
+        dto.setDaysRemaining(cycleService.calculateDaysRemaining(cycle, day));
+        dto.setObjectives(past.objectives());
+        return dto;
+    }
+
+    private SheetDetailDto mapSheetHeader(OkrSheet sheet) {
+        Cycle cycle = sheet.getCycle();
 
         SheetDetailDto dto = new SheetDetailDto();
         dto.setId(sheet.getId());
@@ -243,15 +243,18 @@ public class OkrServiceImpl implements OkrService {
         dto.setTitle(title);
         dto.setScopeType(sheet.getScopeType());
         dto.setScopeId(sheet.getScopeId());
-
-        // Objectives
-        List<Objective> objectives = objectiveRepository.findBySheetIdOrderBySortOrderAsc(sheetId);
-        dto.setObjectives(objectives.stream().map(obj -> mapObjective(obj, currentUser)).collect(Collectors.toList()));
-
         return dto;
     }
 
-    private ObjectiveDto mapObjective(Objective obj, User currentUser) {
+    private ObjectiveDto mapObjective(Objective obj, UserPrincipal currentUser) {
+        List<KeyResult> krs = krRepository.findByObjectiveIdOrderBySortOrderAsc(obj.getId());
+        Map<UUID, AccessDto> access = permissionService.evaluateKeyResults(currentUser, krs);
+        return mapObjective(obj, krs.stream()
+                .map(kr -> mapKeyResult(kr, access.get(kr.getId()).isCanManage()))
+                .collect(Collectors.toList()));
+    }
+
+    private ObjectiveDto mapObjective(Objective obj, List<KeyResultDto> keyResults) {
         ObjectiveDto dto = new ObjectiveDto();
         dto.setId(obj.getId());
         dto.setTitle(obj.getTitle());
@@ -260,12 +263,15 @@ public class OkrServiceImpl implements OkrService {
         dto.setSortOrder(obj.getSortOrder());
         dto.setWeight(obj.getWeight());
 
-        List<KeyResult> krs = krRepository.findByObjectiveIdOrderBySortOrderAsc(obj.getId());
-        dto.setKeyResults(krs.stream().map(kr -> mapKeyResult(kr, currentUser)).collect(Collectors.toList()));
+        dto.setKeyResults(keyResults);
         return dto;
     }
 
-    private KeyResultDto mapKeyResult(KeyResult kr, User currentUser) {
+    private KeyResultDto mapKeyResult(KeyResult kr, UserPrincipal currentUser) {
+        return mapKeyResult(kr, permissionService.canEditKeyResult(currentUser, kr));
+    }
+
+    private KeyResultDto mapKeyResult(KeyResult kr, boolean canEdit) {
         KeyResultDto dto = new KeyResultDto();
         dto.setId(kr.getId());
         dto.setTitle(kr.getTitle());
@@ -281,26 +287,93 @@ public class OkrServiceImpl implements OkrService {
         dto.setSortOrder(kr.getSortOrder());
         dto.setWeight(kr.getWeight());
 
-        dto.setCanEdit(permissionService.canEditKeyResult(currentUser, kr));
+        dto.setCanEdit(canEdit);
 
         return dto;
     }
 
     @Override
     @Transactional
-    public KeyResultDto updateKeyResult(UUID krId, UpdateKeyResultRequest request, User actor) {
-        KeyResult kr = krRepository.findById(krId).orElseThrow(() -> new RuntimeException("KR not found"));
+    public KeyResultDto updateKeyResult(UUID krId, UpdateKeyResultRequest request, UserPrincipal principal) {
+        User actor = userRepository.getReferenceById(principal.getId()); // Proxy for audit/owner links, no query
+        KeyResult kr = krRepository.findForUpdateById(krId).orElseThrow(() -> new RuntimeException("KR not found"));
 
-        if (!permissionService.canEditKeyResult(actor, kr)) {
+        if (!permissionService.canEditKeyResult(principal, kr)) {
             throw new RuntimeException("Access Denied: You cannot edit this Key Result.");
         }
 
+        List<AuditLog> audit = new ArrayList<>();
+        double oldProgress = applyKeyResultUpdate(kr, request, actor, audit);
+        krRepository.save(kr);
+        auditService.logChanges(audit);
+        if (isCheckIn(kr, request, oldProgress)) {
+            progressHistoryService.recordCheckIns(List.of(kr));
+        }
+
+        // Rollup
+        rollupService.keyResultProgressChanged(kr, oldProgress);
+
+        return mapKeyResult(kr, principal);
+    }
+
+    @Override
+    @Transactional
+    public List<KeyResultDto> updateKeyResults(UUID sheetId, List<BulkKeyResultUpdateRequest.Item> updates, UserPrincipal principal) {
+        User actor = userRepository.getReferenceById(principal.getId());
+        OkrSheet sheet = sheetRepository.findById(sheetId).orElseThrow(() -> new RuntimeException("Sheet not found"));
+
+        Set<UUID> krIds = updates.stream().map(BulkKeyResultUpdateRequest.Item::getKeyResultId).collect(Collectors.toSet());
+        Map<UUID, KeyResult> krs = new HashMap<>();
+        for (KeyResult kr : krRepository.findWithObjectiveByIdIn(krIds)) {
+            if (!sheetId.equals(kr.getObjective().getSheet().getId())) {
+                throw new RuntimeException("Key Result " + kr.getId() + " does not belong to this sheet.");
+            }
+            krs.put(kr.getId(), kr);
+        }
+
+        // One permission check for the whole sheet; KR owners may always edit their own rows
+        boolean canEditSheet = permissionService.canEditSheet(principal, sheet);
+
+        List<AuditLog> audit = new ArrayList<>();
+        List<KeyResult> checkIns = new ArrayList<>();
+        List<KeyResultDto> result = new ArrayList<>();
+        for (BulkKeyResultUpdateRequest.Item update : updates) {
+            KeyResult kr = krs.get(update.getKeyResultId());
+            if (kr == null) {
+                throw new RuntimeException("KR not found: " + update.getKeyResultId());
+            }
+            boolean ownsKr = kr.getOwner() != null && Objects.equals(kr.getOwner().getId(), principal.getId());
+            if (!canEditSheet && !ownsKr) {
+                throw new RuntimeException("Access Denied: You cannot edit Key Result " + kr.getId() + ".");
+            }
+
+            double oldProgress = applyKeyResultUpdate(kr, update, actor, audit);
+            if (isCheckIn(kr, update, oldProgress)) {
+                checkIns.add(kr);
+            }
+            result.add(mapKeyResult(kr, true));
+        }
+        krRepository.saveAll(krs.values());
+        auditService.logChanges(audit);
+        progressHistoryService.recordCheckIns(checkIns);
+
+        // Each affected objective and the sheet are rolled up once for the whole batch
+        rollupService.keyResultsChanged(sheet);
+
+        return result;
+    }
+
+    /**
+     * Applies the non-null request fields to the KR, recalculates its progress and records audit
+     * entries for the tracked fields. Returns the progress before the update.
+     */
+    private double applyKeyResultUpdate(KeyResult kr, UpdateKeyResultRequest request, User actor, List<AuditLog> audit) {
         // Check for changes and Audit
-        checkAndAudit(actor, "KEY_RESULT", kr.getId(), "current_value", String.valueOf(kr.getCurrentValue()),
+        checkAndAudit(audit, actor, "KEY_RESULT", kr.getId(), "current_value", String.valueOf(kr.getCurrentValue()),
                 String.valueOf(request.getCurrentValue()));
-        checkAndAudit(actor, "KEY_RESULT", kr.getId(), "confidence_level", kr.getConfidenceLevel(),
+        checkAndAudit(audit, actor, "KEY_RESULT", kr.getId(), "confidence_level", kr.getConfidenceLevel(),
                 request.getConfidenceLevel());
-        checkAndAudit(actor, "KEY_RESULT", kr.getId(), "comments", kr.getComments(), request.getComments());
+        checkAndAudit(audit, actor, "KEY_RESULT", kr.getId(), "comments", kr.getComments(), request.getComments());
 
         if (request.getCurrentValue() != null)
             kr.setCurrentValue(request.getCurrentValue());
@@ -322,59 +395,58 @@ public class OkrServiceImpl implements OkrService {
             kr.setAlignedProjects(request.getAlignedProjects());
 
         // Recalculate KR Progress
+        double oldProgress = kr.getComputedProgress() != null ? kr.getComputedProgress() : 0.0;
         double newProgress = calculationService.calculateKrProgress(kr.getStartValue(), kr.getTargetValue(),
                 kr.getCurrentValue());
         kr.setComputedProgress(newProgress);
-        krRepository.save(kr);
-
-        // Rollup
-        rollupObjective(kr.getObjective());
-
-        return mapKeyResult(kr, actor);
-    }
-
-    private void rollupObjective(Objective obj) {
-        List<KeyResult> krs = krRepository.findByObjectiveIdOrderBySortOrderAsc(obj.getId());
-        double objProgress = calculationService.calculateObjectiveProgress(krs);
-        obj.setComputedProgress(objProgress);
-        objectiveRepository.save(obj);
-
-        rollupSheet(obj.getSheet());
+        return oldProgress;
     }
 
-    private void rollupSheet(OkrSheet sheet) {
-        List<Objective> objs = objectiveRepository.findBySheetIdOrderBySortOrderAsc(sheet.getId());
-        double sheetProgress = calculationService.calculateSheetProgress(objs);
-        sheet.setComputedOverallProgress(sheetProgress);
-        sheetRepository.save(sheet);
+    /**
+     * A new value or confidence, or a progress change from a start/target edit, goes into the
+     * check-in time series; title or comment edits do not.
+     */
+    private static boolean isCheckIn(KeyResult kr, UpdateKeyResultRequest request, double oldProgress) {
+        return request.getCurrentValue() != null || request.getConfidenceLevel() != null
+                || kr.getComputedProgress() != oldProgress;
     }
 
-    private void checkAndAudit(User actor, String type, UUID id, String field, String oldVal, String newVal) {
+    private void checkAndAudit(List<AuditLog> audit, User actor, String type, UUID id, String field, String oldVal,
+            String newVal) {
         String o = oldVal == null ? "" : oldVal;
         String n = newVal == null ? "" : newVal;
         if (!o.equals(n)) {
-            auditService.logChange(actor, type, id, field, oldVal, newVal);
+            AuditLog entry = new AuditLog();
+            entry.setActor(actor);
+            entry.setEntityType(type);
+            entry.setEntityId(id);
+            entry.setFieldName(field);
+            entry.setOldValue(oldVal);
+            entry.setNewValue(newVal);
+            audit.add(entry);
         }
     }
 
     @Override
     @Transactional
-    public ObjectiveDto updateObjective(UUID objectiveId, UpdateObjectiveRequest request, User actor) {
+    public ObjectiveDto updateObjective(UUID objectiveId, UpdateObjectiveRequest request, UserPrincipal principal) {
+        User actor = userRepository.getReferenceById(principal.getId());
         Objective obj = objectiveRepository.findById(objectiveId)
                 .orElseThrow(() -> new RuntimeException("Objective not found"));
 
-        if (!permissionService.canEditSheet(actor, obj.getSheet())) {
+        if (!permissionService.canEditSheet(principal, obj.getSheet())) {
             throw new RuntimeException("Access Denied: You cannot edit this Objective.");
         }
 
+        List<AuditLog> audit = new ArrayList<>();
         if (request.getTitle() != null) {
-            checkAndAudit(actor, "OBJECTIVE", obj.getId(), "title", obj.getTitle(), request.getTitle());
+            checkAndAudit(audit, actor, "OBJECTIVE", obj.getId(), "title", obj.getTitle(), request.getTitle());
             obj.setTitle(request.getTitle());
         }
 
         if (request.getOwnerUserId() != null) {
             String oldOwner = obj.getOwner() != null ? obj.getOwner().getId().toString() : null;
-            checkAndAudit(actor, "OBJECTIVE", obj.getId(), "owner_user_id", oldOwner, request.getOwnerUserId().toString());
+            checkAndAudit(audit, actor, "OBJECTIVE", obj.getId(), "owner_user_id", oldOwner, request.getOwnerUserId().toString());
 
             User newOwner = userRepository.findById(request.getOwnerUserId())
                     .orElseThrow(() -> new RuntimeException("Owner user not found"));
@@ -382,17 +454,22 @@ public class OkrServiceImpl implements OkrService {
         }
 
         objectiveRepository.save(obj);
+        auditService.logChanges(audit);
 
-        return mapObjective(obj, actor);
+        // Objective titles are part of the dashboard card preview
+        rollupService.sheetChanged(obj.getSheet());
+
+        return mapObjective(obj, principal);
     }
 
     @Override
     @Transactional
-    public ObjectiveDto createObjective(UUID sheetId, CreateObjectiveRequest request, User actor) {
+    public ObjectiveDto createObjective(UUID sheetId, CreateObjectiveRequest request, UserPrincipal principal) {
+        User actor = userRepository.getReferenceById(principal.getId());
         OkrSheet sheet = sheetRepository.findById(sheetId)
                 .orElseThrow(() -> new RuntimeException("Sheet not found"));
 
-        if (!permissionService.canEditSheet(actor, sheet)) {
+        if (!permissionService.canEditSheet(principal, sheet)) {
             throw new RuntimeException("Access Denied: You cannot add objectives to this sheet.");
         }
 
@@ -410,16 +487,19 @@ public class OkrServiceImpl implements OkrService {
 
         auditService.logChange(actor, "OBJECTIVE", obj.getId(), "created", null, request.getTitle());
 
-        return mapObjective(obj, actor);
+        rollupService.objectiveAdded(obj);
+
+        return mapObjective(obj, principal);
     }
 
     @Override
     @Transactional
-    public KeyResultDto createKeyResult(UUID objectiveId, CreateKeyResultRequest request, User actor) {
+    public KeyResultDto createKeyResult(UUID objectiveId, CreateKeyResultRequest request, UserPrincipal principal) {
+        User actor = userRepository.getReferenceById(principal.getId());
         Objective obj = objectiveRepository.findById(objectiveId)
                 .orElseThrow(() -> new RuntimeException("Objective not found"));
 
-        if (!permissionService.canEditSheet(actor, obj.getSheet())) {
+        if (!permissionService.canEditSheet(principal, obj.getSheet())) {
             throw new RuntimeException("Access Denied: You cannot add key results to this objective.");
         }
 
@@ -441,39 +521,45 @@ public class OkrServiceImpl implements OkrService {
         kr = krRepository.save(kr);
 
         auditService.logChange(actor, "KEY_RESULT", kr.getId(), "created", null, request.getTitle());
+        progressHistoryService.recordCheckIns(List.of(kr));
+
+        rollupService.keyResultAdded(kr);
 
-        return mapKeyResult(kr, actor);
+        return mapKeyResult(kr, principal);
     }
 
     @Override
     @Transactional
-    public void deleteObjective(UUID objectiveId, User actor) {
+    public void deleteObjective(UUID objectiveId, UserPrincipal principal) {
+        User actor = userRepository.getReferenceById(principal.getId());
         Objective obj = objectiveRepository.findById(objectiveId)
                 .orElseThrow(() -> new RuntimeException("Objective not found"));
 
-        if (!permissionService.canEditSheet(actor, obj.getSheet())) {
+        if (!permissionService.canEditSheet(principal, obj.getSheet())) {
             throw new RuntimeException("Access Denied: You cannot delete this objective.");
         }
 
         OkrSheet sheet = obj.getSheet();
 
         List<KeyResult> krs = krRepository.findByObjectiveIdOrderBySortOrderAsc(objectiveId);
+        progressHistoryService.recordRemovals(krs);
         krRepository.deleteAll(krs);
 
         auditService.logChange(actor, "OBJECTIVE", obj.getId(), "deleted", obj.getTitle(), null);
 
         objectiveRepository.delete(obj);
 
-        rollupSheet(sheet);
+        rollupService.objectiveRemoved(sheet, obj.getComputedProgress() != null ? obj.getComputedProgress() : 0.0);
     }
 
     @Override
     @Transactional
-    public void deleteKeyResult(UUID krId, User actor) {
+    public void deleteKeyResult(UUID krId, UserPrincipal principal) {
+        User actor = userRepository.getReferenceById(principal.getId());
         KeyResult kr = krRepository.findById(krId)
                 .orElseThrow(() -> new RuntimeException("Key Result not found"));
 
-        if (!permissionService.canEditKeyResult(actor, kr)) {
+        if (!permissionService.canEditKeyResult(principal, kr)) {
             throw new RuntimeException("Access Denied: You cannot delete this key result.");
         }
 
@@ -481,8 +567,10 @@ public class OkrServiceImpl implements OkrService {
 
         auditService.logChange(actor, "KEY_RESULT", kr.getId(), "deleted", kr.getTitle(), null);
 
+        double progress = kr.getComputedProgress() != null ? kr.getComputedProgress() : 0.0;
+        progressHistoryService.recordRemovals(List.of(kr));
         krRepository.delete(kr);
 
-        rollupObjective(obj);
+        rollupService.keyResultRemoved(obj, progress);
     }
 }
@@ -1,15 +1,21 @@
 package com.onnorokom.okr.service.impl;
 
-import com.onnorokom.okr.model.*;
-import com.onnorokom.okr.repository.DepartmentRepository;
-import com.onnorokom.okr.repository.RoleAssignmentRepository;
-import com.onnorokom.okr.repository.UserRepository;
+import com.onnorokom.okr.dto.AccessDto;
+import com.onnorokom.okr.model.KeyResult;
+import com.onnorokom.okr.model.OkrSheet;
+import com.onnorokom.okr.security.UserPrincipal;
 import com.onnorokom.okr.service.PermissionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
-import java.util.List;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -21,120 +27,22 @@ import java.util.UUID;
  * - TEAM_ADMIN: manages own team OKR + department OKRs under that team + personal OKRs of team members
  * - DEPARTMENT_ADMIN: manages own department OKR + personal OKR; can view company+team read-only
  * - MEMBER: manages personal OKR + department OKR; can view company+team read-only
+ *
+ * The rules are compiled per user by {@link AclIndex}; checks here are lookups against it.
  */
 @Service
 public class PermissionServiceImpl implements PermissionService {
 
     @Autowired
-    private RoleAssignmentRepository roleAssignmentRepository;
-
-    @Autowired
-    private UserRepository userRepository;
-
-    @Autowired
-    private DepartmentRepository departmentRepository;
+    private AclIndex aclIndex;
 
     @Override
-    public boolean canEditSheet(User actor, OkrSheet sheet) {
-        List<RoleAssignment> roles = roleAssignmentRepository.findByUserId(actor.getId());
-
-        // 1. SUPER_ADMIN can edit anything
-        if (hasRole(roles, "SUPER_ADMIN")) {
-            return true;
-        }
-
-        // 2. ORG_LEADERSHIP is view-only - cannot edit anything
-        if (hasRole(roles, "ORG_LEADERSHIP")) {
-            return false;
-        }
-
-        switch (sheet.getScopeType()) {
-            case "COMPANY":
-                // Only Super Admin can edit company sheets (already handled above)
-                return false;
-
-            case "TEAM":
-                // TEAM_ADMIN can edit their own team's OKR
-                return roles.stream()
-                        .anyMatch(r -> "TEAM_ADMIN".equals(r.getRole())
-                                && "TEAM".equals(r.getScopeType())
-                                && Objects.equals(r.getScopeId(), sheet.getScopeId()));
-
-            case "DEPARTMENT":
-                UUID deptId = sheet.getScopeId();
-
-                // DEPARTMENT_ADMIN can edit their department's OKR
-                if (roles.stream().anyMatch(r -> "DEPARTMENT_ADMIN".equals(r.getRole())
-                        && "DEPARTMENT".equals(r.getScopeType())
-                        && Objects.equals(r.getScopeId(), deptId))) {
-                    return true;
-                }
-
-                // TEAM_ADMIN can edit department OKRs if the department is under their team
-                Department dept = departmentRepository.findById(deptId).orElse(null);
-                if (dept != null && dept.getTeam() != null) {
-                    UUID deptTeamId = dept.getTeam().getId();
-                    if (roles.stream().anyMatch(r -> "TEAM_ADMIN".equals(r.getRole())
-                            && "TEAM".equals(r.getScopeType())
-                            && Objects.equals(r.getScopeId(), deptTeamId))) {
-                        return true;
-                    }
-                }
-
-                // MEMBER can edit their own department's OKR (per spec: "manages personal OKR + department OKR")
-                if (actor.getDepartment() != null && Objects.equals(actor.getDepartment().getId(), deptId)) {
-                    // Check if actor is a MEMBER of this department
-                    if (roles.stream().anyMatch(r -> "MEMBER".equals(r.getRole()))) {
-                        return true;
-                    }
-                }
-
-                return false;
-
-            case "PERSONAL":
-                UUID ownerUserId = sheet.getScopeId();
-
-                // Owner can always edit their own personal OKR
-                if (Objects.equals(actor.getId(), ownerUserId)) {
-                    return true;
-                }
-
-                // Get the owner to check their team/department
-                var ownerOpt = userRepository.findById(ownerUserId);
-                if (ownerOpt.isEmpty()) {
-                    return false;
-                }
-                User owner = ownerOpt.get();
-
-                // TEAM_ADMIN can edit personal OKRs of members in their team
-                if (owner.getTeam() != null) {
-                    UUID ownerTeamId = owner.getTeam().getId();
-                    if (roles.stream().anyMatch(r -> "TEAM_ADMIN".equals(r.getRole())
-                            && "TEAM".equals(r.getScopeType())
-                            && Objects.equals(r.getScopeId(), ownerTeamId))) {
-                        return true;
-                    }
-                }
-
-                // DEPARTMENT_ADMIN can edit personal OKRs of members in their department
-                if (owner.getDepartment() != null) {
-                    UUID ownerDeptId = owner.getDepartment().getId();
-                    if (roles.stream().anyMatch(r -> "DEPARTMENT_ADMIN".equals(r.getRole())
-                            && "DEPARTMENT".equals(r.getScopeType())
-                            && Objects.equals(r.getScopeId(), ownerDeptId))) {
-                        return true;
-                    }
-                }
-
-                return false;
-
-            default:
-                return false;
-        }
+    public boolean canEditSheet(UserPrincipal actor, OkrSheet sheet) {
+        return acl(actor).canEdit(sheet.getScopeType(), sheet.getScopeId());
     }
 
     @Override
-    public boolean canEditKeyResult(User actor, KeyResult kr) {
+    public boolean canEditKeyResult(UserPrincipal actor, KeyResult kr) {
         // 1. Owner of KR can always edit
         if (kr.getOwner() != null && Objects.equals(kr.getOwner().getId(), actor.getId())) {
             return true;
@@ -145,18 +53,83 @@ public class PermissionServiceImpl implements PermissionService {
     }
 
     @Override
-    public boolean isSuperAdmin(User actor) {
-        List<RoleAssignment> roles = roleAssignmentRepository.findByUserId(actor.getId());
-        return hasRole(roles, "SUPER_ADMIN");
+    public boolean isSuperAdmin(UserPrincipal actor) {
+        return acl(actor).isSuperAdmin();
+    }
+
+    @Override
+    public boolean isOrgLeadership(UserPrincipal actor) {
+        return acl(actor).isOrgLeadership();
+    }
+
+    @Override
+    public AclIndex.EditableScopes editableScopes(UserPrincipal actor) {
+        return acl(actor).editableScopes();
+    }
+
+    @Override
+    public long aclVersion() {
+        return aclIndex.version();
+    }
+
+    @Override
+    public Map<UUID, AccessDto> evaluateSheets(UserPrincipal actor, Collection<OkrSheet> sheets) {
+        AclIndex.Acl acl = acl(actor);
+
+        // Sheets of the same scope (e.g. across cycles) share one evaluation
+        Map<String, boolean[]> byScope = new HashMap<>();
+        Map<UUID, AccessDto> result = new LinkedHashMap<>();
+        for (OkrSheet sheet : sheets) {
+            boolean[] flags = byScope.computeIfAbsent(sheet.getScopeType() + ":" + sheet.getScopeId(),
+                    k -> new boolean[] {
+                            acl.canView(sheet.getScopeType(), sheet.getScopeId()),
+                            acl.canEdit(sheet.getScopeType(), sheet.getScopeId()) });
+            result.put(sheet.getId(), access(sheet.getId(), flags[0], flags[1]));
+        }
+        return result;
     }
 
     @Override
-    public boolean isOrgLeadership(User actor) {
-        List<RoleAssignment> roles = roleAssignmentRepository.findByUserId(actor.getId());
-        return hasRole(roles, "ORG_LEADERSHIP");
+    public Map<UUID, AccessDto> evaluateKeyResults(UserPrincipal actor, Collection<KeyResult> keyResults) {
+        Map<UUID, OkrSheet> sheets = new LinkedHashMap<>();
+        for (KeyResult kr : keyResults) {
+            OkrSheet sheet = kr.getObjective().getSheet();
+            sheets.putIfAbsent(sheet.getId(), sheet);
+        }
+        Map<UUID, AccessDto> sheetAccess = evaluateSheets(actor, sheets.values());
+
+        Map<UUID, AccessDto> result = new LinkedHashMap<>();
+        for (KeyResult kr : keyResults) {
+            AccessDto sheet = sheetAccess.get(kr.getObjective().getSheet().getId());
+            boolean owner = kr.getOwner() != null && Objects.equals(kr.getOwner().getId(), actor.getId());
+            result.put(kr.getId(), access(kr.getId(), sheet.isCanView() || owner, sheet.isCanManage() || owner));
+        }
+        return result;
     }
 
-    private boolean hasRole(List<RoleAssignment> roles, String roleName) {
-        return roles.stream().anyMatch(r -> roleName.equals(r.getRole()));
+    private static AccessDto access(UUID id, boolean canView, boolean canManage) {
+        AccessDto dto = new AccessDto();
+        dto.setId(id);
+        dto.setCanView(canView);
+        dto.setCanManage(canManage);
+        return dto;
+    }
+
+    /**
+     * The actor's ACL, pinned for the rest of the HTTP request so every check in one request sees
+     * the same permissions. Outside a request (scheduled jobs) it is looked up on each call.
+     */
+    private AclIndex.Acl acl(UserPrincipal actor) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) {
+            return aclIndex.acl(actor.getId());
+        }
+        String key = AclIndex.Acl.class.getName() + ":" + actor.getId();
+        AclIndex.Acl acl = (AclIndex.Acl) request.getAttribute(key, RequestAttributes.SCOPE_REQUEST);
+        if (acl == null) {
+            acl = aclIndex.acl(actor.getId());
+            request.setAttribute(key, acl, RequestAttributes.SCOPE_REQUEST);
+        }
+        return acl;
     }
 }
@@ -0,0 +1,165 @@
+package com.onnorokom.okr.service.impl;
+
+import com.onnorokom.okr.dto.ProgressSeriesDto;
+import com.onnorokom.okr.model.*;
+import com.onnorokom.okr.repository.*;
+import com.onnorokom.okr.service.ProgressHistoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.*;
+
+@Service
+public class ProgressHistoryServiceImpl implements ProgressHistoryService {
+
+    private static final int MAX_POINTS = 500;
+
+    @Autowired
+    private KeyResultCheckInRepository checkInRepository;
+    @Autowired
+    private KeyResultRepository krRepository;
+    @Autowired
+    private ObjectiveRepository objectiveRepository;
+    @Autowired
+    private OkrSheetRepository sheetRepository;
+
+    @Override
+    @Transactional
+    public void recordCheckIns(Collection<KeyResult> keyResults) {
+        record(keyResults, false);
+    }
+
+    @Override
+    @Transactional
+    public void recordRemovals(Collection<KeyResult> keyResults) {
+        record(keyResults, true);
+    }
+
+    private void record(Collection<KeyResult> keyResults, boolean removed) {
+        if (keyResults.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        List<KeyResultCheckIn> checkIns = new ArrayList<>(keyResults.size());
+        for (KeyResult kr : keyResults) {
+            KeyResultCheckIn checkIn = new KeyResultCheckIn();
+            checkIn.setKeyResultId(kr.getId());
+            checkIn.setObjectiveId(kr.getObjective().getId());
+            checkIn.setSheetId(kr.getObjective().getSheet().getId());
+            checkIn.setRecordedAt(now);
+            checkIn.setCurrentValue(kr.getCurrentValue());
+            checkIn.setComputedProgress(kr.getComputedProgress() != null ? kr.getComputedProgress() : 0.0);
+            checkIn.setConfidenceLevel(kr.getConfidenceLevel());
+            checkIn.setRemoved(removed);
+            checkIns.add(checkIn);
+        }
+        checkInRepository.saveAll(checkIns);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProgressSeriesDto getKeyResultHistory(UUID krId, int points) {
+        KeyResult kr = krRepository.findById(krId).orElseThrow(() -> new RuntimeException("KR not found"));
+        ProgressSeriesDto series = window("KEY_RESULT", krId, kr.getObjective().getSheet().getCycle());
+        return downsample(series, checkInRepository.findPointsByKeyResultId(krId, series.getTo()), points);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProgressSeriesDto getObjectiveHistory(UUID objectiveId, int points) {
+        Objective obj = objectiveRepository.findById(objectiveId)
+                .orElseThrow(() -> new RuntimeException("Objective not found"));
+        ProgressSeriesDto series = window("OBJECTIVE", objectiveId, obj.getSheet().getCycle());
+        return downsample(series,
+                checkInRepository.findPointsByObjectiveId(obj.getSheet().getId(), objectiveId, series.getTo()), points);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProgressSeriesDto getSheetHistory(UUID sheetId, int points) {
+        OkrSheet sheet = sheetRepository.findById(sheetId).orElseThrow(() -> new RuntimeException("Sheet not found"));
+        ProgressSeriesDto series = window("SHEET", sheetId, sheet.getCycle());
+        return downsample(series, checkInRepository.findPointsBySheetId(sheetId, series.getTo()), points);
+    }
+
+    /**
+     * The series covers the cycle from its start date up to its end date or now, whichever is earlier.
+     */
+    private static ProgressSeriesDto window(String scopeType, UUID scopeId, Cycle cycle) {
+        ZoneId zone = ZoneId.systemDefault();
+        Instant from = cycle.getStartDate().atStartOfDay(zone).toInstant();
+        Instant end = cycle.getEndDate().plusDays(1).atStartOfDay(zone).toInstant();
+        Instant now = Instant.now();
+
+        ProgressSeriesDto series = new ProgressSeriesDto();
+        series.setScopeType(scopeType);
+        series.setScopeId(scopeId);
+        series.setFrom(from);
+        series.setTo(now.isBefore(end) ? now : end);
+        return series;
+    }
+
+    /**
+     * Sweeps the time-ordered check-ins once and emits the progress as of the end of each of
+     * {@code points} equal buckets. Each KR carries its latest progress forward; an objective is
+     * the mean of its KRs and the scope is the mean of its objectives, matching the rollup. KRs
+     * only count from their first check-in, so KRs added mid-cycle don't pull history down, and
+     * stop counting at their removed row once deleted.
+     */
+    private static ProgressSeriesDto downsample(ProgressSeriesDto series, List<KeyResultCheckInRepository.Point> rows,
+            int points) {
+        Instant from = series.getFrom();
+        Instant to = series.getTo();
+        if (!to.isAfter(from)) {
+            return series; // Cycle has not started yet
+        }
+        int buckets = Math.max(1, Math.min(points, MAX_POINTS));
+        long spanNanos = Duration.between(from, to).toNanos();
+
+        Map<UUID, Map<UUID, Double>> latestByObjective = new LinkedHashMap<>(); // objectiveId -> krId -> progress
+        int next = 0;
+        for (int i = 1; i <= buckets; i++) {
+            Instant bucketEnd = i == buckets ? to : from.plusNanos(spanNanos / buckets * i);
+            while (next < rows.size() && !rows.get(next).getRecordedAt().isAfter(bucketEnd)) {
+                KeyResultCheckInRepository.Point row = rows.get(next++);
+                if (row.isRemoved()) {
+                    Map<UUID, Double> krs = latestByObjective.get(row.getObjectiveId());
+                    if (krs != null) {
+                        krs.remove(row.getKeyResultId());
+                        if (krs.isEmpty()) {
+                            latestByObjective.remove(row.getObjectiveId());
+                        }
+                    }
+                    continue;
+                }
+                latestByObjective.computeIfAbsent(row.getObjectiveId(), k -> new HashMap<>())
+                        .put(row.getKeyResultId(), row.getComputedProgress());
+            }
+
+            ProgressSeriesDto.Point point = new ProgressSeriesDto.Point();
+            point.setAt(bucketEnd);
+            point.setProgress(mean(latestByObjective));
+            series.getPoints().add(point);
+        }
+        return series;
+    }
+
+    private static Double mean(Map<UUID, Map<UUID, Double>> latestByObjective) {
+        if (latestByObjective.isEmpty()) {
+            return null;
+        }
+        double sum = 0.0;
+        for (Map<UUID, Double> krs : latestByObjective.values()) {
+            double krSum = 0.0;
+            for (Double progress : krs.values()) {
+                krSum += progress != null ? progress : 0.0;
+            }
+            sum += krSum / krs.size();
+        }
+        return sum / latestByObjective.size();
+    }
+}
@@ -0,0 +1,134 @@
+package com.onnorokom.okr.service.impl;
+
+import com.onnorokom.okr.model.RefreshToken;
+import com.onnorokom.okr.model.User;
+import com.onnorokom.okr.repository.RefreshTokenRepository;
+import com.onnorokom.okr.repository.UserRepository;
+import com.onnorokom.okr.service.RefreshTokenService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Refresh tokens are 256 random bits handed to the client once; only their SHA-256 is stored, so
+ * validating one is a unique-index lookup instead of a BCrypt check. Every use rotates the token
+ * and every login starts a new family, which lets one device be logged out without the others.
+ */
+@Service
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenServiceImpl.class);
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${app.refreshTokenTtl:P30D}")
+    private Duration ttl;
+
+    @Override
+    @Transactional
+    public String issue(UUID userId) {
+        return create(userId, UUID.randomUUID());
+    }
+
+    @Override
+    @Transactional
+    public Optional<Rotation> rotate(String refreshToken) {
+        if (refreshToken == null || refreshToken.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<RefreshToken> found = refreshTokenRepository.findByTokenHash(hash(refreshToken));
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        RefreshToken token = found.get();
+        Instant now = Instant.now();
+        if (token.getExpiresAt().isBefore(now)) {
+            return Optional.empty();
+        }
+
+        // Already used: either a stolen copy or the legitimate client replaying it. Kill the family.
+        if (token.getRevokedAt() != null || refreshTokenRepository.revoke(token.getId(), now) == 0) {
+            logger.warn("Refresh token reused for user {}, revoking its family", token.getUserId());
+            refreshTokenRepository.revokeFamily(token.getFamilyId(), now);
+            return Optional.empty();
+        }
+
+        User user = userRepository.findById(token.getUserId()).orElse(null);
+        if (user == null || Boolean.TRUE.equals(user.getIsBlocked())) {
+            refreshTokenRepository.revokeFamily(token.getFamilyId(), now);
+            return Optional.empty();
+        }
+        return Optional.of(new Rotation(user, create(user.getId(), token.getFamilyId())));
+    }
+
+    @Override
+    @Transactional
+    public void revoke(String refreshToken) {
+        if (refreshToken == null || refreshToken.isEmpty()) {
+            return;
+        }
+        refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId(), Instant.now()));
+    }
+
+    @Override
+    @Transactional
+    public void revokeAll(UUID userId) {
+        refreshTokenRepository.revokeByUserId(userId, Instant.now());
+    }
+
+    /**
+     * Expired tokens can never be used again (nor trigger reuse detection), so they are dropped.
+     */
+    @Scheduled(initialDelayString = "PT5M", fixedDelayString = "${app.refreshTokenCleanupInterval:PT6H}")
+    @Transactional
+    public void deleteExpired() {
+        int deleted = refreshTokenRepository.deleteExpiredBefore(Instant.now());
+        if (deleted > 0) {
+            logger.info("Deleted {} expired refresh tokens", deleted);
+        }
+    }
+
+    private String create(UUID userId, UUID familyId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String raw = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken token = new RefreshToken();
+        token.setUserId(userId);
+        token.setFamilyId(familyId);
+        token.setTokenHash(hash(raw));
+        token.setExpiresAt(Instant.now().plus(ttl));
+        refreshTokenRepository.save(token);
+        return raw;
+    }
+
+    private static String hash(String raw) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(raw.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.onnorokom.okr.service.impl;
+
+import com.onnorokom.okr.dto.RollupDriftDto;
+import com.onnorokom.okr.model.KeyResult;
+import com.onnorokom.okr.model.Objective;
+import com.onnorokom.okr.model.OkrSheet;
+import com.onnorokom.okr.repository.KeyResultRepository;
+import com.onnorokom.okr.repository.ObjectiveRepository;
+import com.onnorokom.okr.repository.OkrSheetRepository;
+import com.onnorokom.okr.repository.RollupRow;
+import com.onnorokom.okr.service.RollupService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Incremental progress rollup.
+ *
+ * A KR check-in costs one statement that updates the objective aggregates and carries the
+ * objective delta into the sheet aggregates, plus the sheet version bump. Floating point deltas
+ * can drift over time, so {@link #verifySheets} recomputes from scratch; with
+ * {@code app.rollupVerify=true} every incremental write is cross-checked and drift is logged.
+ *
+ * With {@code app.rollupMode=async} writes only mark their sheet dirty, in {@code rollup_pending}
+ * inside the writing transaction and in {@link CoalescingRollupQueue} after commit, and the queue
+ * recomputes each dirty sheet once per debounce window. The recompute deletes the row in its own
+ * transaction, so rows left by a crash are picked up again at startup. Reads
+ * flush just the sheets they show, so they always see their own writes without draining the
+ * whole queue on a request thread.
+ */
+@Service
+public class RollupServiceImpl implements RollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RollupServiceImpl.class);
+
+    private static final double EPSILON = 1e-6;
+
+    @Autowired
+    private OkrSheetRepository sheetRepository;
+    @Autowired
+    private ObjectiveRepository objectiveRepository;
+    @Autowired
+    private KeyResultRepository krRepository;
+    @Autowired
+    private SheetSummaryCache summaryCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.rollupVerify:false}")
+    private boolean verifyEachWrite;
+
+    @Value("${app.rollupMode:sync}")
+    private String rollupMode;
+
+    @Value("${app.rollupDebounceMs:500}")
+    private long rollupDebounceMs;
+
+    private CoalescingRollupQueue queue; // null in sync mode
+
+    @PostConstruct
+    void startQueue() {
+        if ("async".equalsIgnoreCase(rollupMode)) {
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            queue = new CoalescingRollupQueue(rollupDebounceMs,
+                    sheetId -> tx.executeWithoutResult(status -> {
+                        // Deleted first: a write committing after this re-inserts the row
+                        jdbcTemplate.update("DELETE FROM rollup_pending WHERE sheet_id = ?", sheetId);
+                        reconcile(List.of(sheetId), true, true);
+                    }),
+                    meterRegistry);
+            // Recomputes that were pending when a node stopped
+            List<UUID> pending = jdbcTemplate.queryForList("SELECT sheet_id FROM rollup_pending", UUID.class);
+            pending.forEach(queue::markDirty);
+            logger.info("Async rollup enabled (debounce {} ms, {} sheets pending)", rollupDebounceMs, pending.size());
+        }
+    }
+
+    @PreDestroy
+    void stopQueue() {
+        if (queue != null) {
+            queue.shutdown();
+        }
+    }
+
+    @Override
+    @Transactional
+    public void keyResultProgressChanged(KeyResult kr, double oldProgress) {
+        if (deferred(kr.getObjective().getSheet())) {
+            return;
+        }
+        double delta = kr.getComputedProgress() - oldProgress;
+        if (delta != 0.0) {
+            objectiveRepository.applyKeyResultDelta(kr.getObjective().getId(), delta, 0);
+        }
+        sheetChanged(kr.getObjective().getSheet());
+    }
+
+    @Override
+    @Transactional
+    public void keyResultAdded(KeyResult kr) {
+        if (deferred(kr.getObjective().getSheet())) {
+            return;
+        }
+        objectiveRepository.applyKeyResultDelta(kr.getObjective().getId(), kr.getComputedProgress(), 1);
+        sheetChanged(kr.getObjective().getSheet());
+    }
+
+    @Override
+    @Transactional
+    public void keyResultsChanged(OkrSheet sheet) {
+        if (deferred(sheet)) {
+            return;
+        }
+        reconcile(List.of(sheet.getId()), true, true);
+    }
+
+    @Override
+    @Transactional
+    public void keyResultRemoved(Objective objective, double progress) {
+        if (deferred(objective.getSheet())) {
+            return;
+        }
+        objectiveRepository.applyKeyResultDelta(objective.getId(), -progress, -1);
+        sheetChanged(objective.getSheet());
+    }
+
+    @Override
+    @Transactional
+    public void objectiveAdded(Objective objective) {
+        if (deferred(objective.getSheet())) {
+            return;
+        }
+        sheetRepository.applyObjectiveDelta(objective.getSheet().getId(), objective.getComputedProgress(), 1);
+        sheetChanged(objective.getSheet());
+    }
+
+    @Override
+    @Transactional
+    public void objectiveRemoved(OkrSheet sheet, double progress) {
+        if (deferred(sheet)) {
+            return;
+        }
+        sheetRepository.applyObjectiveDelta(sheet.getId(), -progress, -1);
+        sheetChanged(sheet);
+    }
+
+    @Override
+    @Transactional
+    public void sheetChanged(OkrSheet sheet) {
+        if (deferred(sheet)) {
+            return;
+        }
+        touch(sheet.getCycle().getId(), sheet.getId());
+
+        if (verifyEachWrite) {
+            List<RollupDriftDto> drifts = verifySheets(List.of(sheet.getId()), false);
+            if (!drifts.isEmpty()) {
+                logger.warn("Rollup drift on sheet {}: {}", sheet.getId(), drifts);
+            }
+        }
+    }
+
+    @Override
+    public void flushPending(UUID sheetId) {
+        if (queue != null) {
+            queue.flush(sheetId);
+        }
+    }
+
+    @Override
+    public Set<UUID> flushPending(Collection<UUID> sheetIds) {
+        if (queue == null) {
+            return Set.of();
+        }
+        return queue.flush(sheetIds);
+    }
+
+    @Override
+    @Transactional
+    public List<RollupDriftDto> verifyCycle(UUID cycleId, boolean repair) {
+        return verifySheets(sheetRepository.findIdsByCycleId(cycleId), repair);
+    }
+
+    @Override
+    @Transactional
+    public List<RollupDriftDto> verifySheets(Collection<UUID> sheetIds, boolean repair) {
+        return reconcile(sheetIds, repair, false);
+    }
+
+    /**
+     * Recomputes the sheets from scratch. {@code touchAll} bumps the version of every sheet even
+     * without drift; the async worker needs that because the writes it stands in for (e.g. a KR
+     * comment) may not move progress at all.
+     */
+    private List<RollupDriftDto> reconcile(Collection<UUID> sheetIds, boolean repair, boolean touchAll) {
+        List<RollupDriftDto> drifts = new ArrayList<>();
+        if (sheetIds.isEmpty()) {
+            return drifts;
+        }
+
+        List<RollupRow> sheets = sheetRepository.findRollupRowsByIdIn(sheetIds);
+        List<RollupRow> objectives = objectiveRepository.findRollupRowsBySheetIdIn(sheetIds);
+        Map<UUID, List<RollupRow>> krsByObjective = new HashMap<>();
+        if (!objectives.isEmpty()) {
+            Set<UUID> objectiveIds = new HashSet<>();
+            objectives.forEach(o -> objectiveIds.add(o.getId()));
+            for (RollupRow kr : krRepository.findRollupRowsByObjectiveIdIn(objectiveIds)) {
+                krsByObjective.computeIfAbsent(kr.getParentId(), k -> new ArrayList<>()).add(kr);
+            }
+        }
+
+        // Objectives: recompute from their key results
+        Map<UUID, double[]> sheetTotals = new HashMap<>(); // sheetId -> {sum, count}
+        Set<UUID> touchedSheets = new HashSet<>();
+        for (RollupRow objective : objectives) {
+            double sum = 0.0;
+            List<RollupRow> krs = krsByObjective.getOrDefault(objective.getId(), List.of());
+            for (RollupRow kr : krs) {
+                sum += value(kr.getComputedProgress());
+            }
+            int count = krs.size();
+            double progress = count > 0 ? sum / count : 0.0;
+
+            RollupDriftDto drift = compare("OBJECTIVE", objective, sum, count, progress);
+            if (drift != null) {
+                if (repair) {
+                    objectiveRepository.overwriteAggregates(objective.getId(), sum, count, progress);
+                    drift.setRepaired(true);
+                    touchedSheets.add(objective.getParentId());
+                }
+                drifts.add(drift);
+            }
+
+            double[] totals = sheetTotals.computeIfAbsent(objective.getParentId(), k -> new double[2]);
+            totals[0] += progress;
+            totals[1] += 1;
+        }
+
+        // Sheets: recompute from the recomputed objective progress
+        for (RollupRow sheet : sheets) {
+            double[] totals = sheetTotals.getOrDefault(sheet.getId(), new double[2]);
+            int count = (int) totals[1];
+            double progress = count > 0 ? totals[0] / count : 0.0;
+
+            RollupDriftDto drift = compare("SHEET", sheet, totals[0], count, progress);
+            if (drift != null) {
+                if (repair) {
+                    sheetRepository.overwriteAggregates(sheet.getId(), totals[0], count, progress);
+                    drift.setRepaired(true);
+                    touchedSheets.add(sheet.getId());
+                }
+                drifts.add(drift);
+            }
+            if (touchAll || touchedSheets.contains(sheet.getId())) {
+                touch(sheet.getParentId(), sheet.getId());
+            }
+        }
+        return drifts;
+    }
+
+    /**
+     * In async mode, records the sheet in rollup_pending, marks it dirty once the current
+     * transaction commits and returns true.
+     */
+    private boolean deferred(OkrSheet sheet) {
+        if (queue == null) {
+            return false;
+        }
+        UUID sheetId = sheet.getId();
+        // Every write moves marked_at, which is part of the dashboard ETag until the rollup lands
+        jdbcTemplate.update("INSERT INTO rollup_pending (sheet_id) VALUES (?)"
+                + " ON CONFLICT (sheet_id) DO UPDATE SET marked_at = EXCLUDED.marked_at", sheetId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    queue.markDirty(sheetId);
+                }
+            });
+        } else {
+            queue.markDirty(sheetId);
+        }
+        return true;
+    }
+
+    private void touch(UUID cycleId, UUID sheetId) {
+        sheetRepository.incrementVersion(sheetId);
+        summaryCache.invalidateSheet(cycleId, sheetId);
+    }
+
+    private static RollupDriftDto compare(String entityType, RollupRow stored, double sum, int count, double progress) {
+        boolean drifted = differs(stored.getComputedProgress(), progress)
+                || differs(stored.getProgressSum(), sum)
+                || stored.getChildCount() == null || stored.getChildCount() != count;
+        if (!drifted) {
+            return null;
+        }
+
+        RollupDriftDto drift = new RollupDriftDto();
+        drift.setEntityType(entityType);
+        drift.setEntityId(stored.getId());
+        drift.setStoredProgress(stored.getComputedProgress());
+        drift.setRecomputedProgress(progress);
+        drift.setStoredSum(stored.getProgressSum());
+        drift.setRecomputedSum(sum);
+        drift.setStoredCount(stored.getChildCount());
+        drift.setRecomputedCount(count);
+        return drift;
+    }
+
+    private static boolean differs(Double stored, double expected) {
+        return stored == null || Math.abs(stored - expected) > EPSILON;
+    }
+
+    private static double value(Double d) {
+        return d != null ? d : 0.0;
+    }
+}
@@ -0,0 +1,151 @@
+package com.onnorokom.okr.service.impl;
+
+import com.onnorokom.okr.dto.SheetSummaryDto;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of dashboard summary cards keyed by (cycle, sheet).
+ *
+ * Cards are stored untitled; callers apply the title for the view they render. Entries are
+ * evicted by the rollup path and by admin mutations that remove sheets. Every eviction bumps a
+ * generation counter, and a card loaded before an eviction is not stored afterwards, so a slow
+ * reader can never put a stale card back.
+ */
+@Component
+public class SheetSummaryCache {
+
+    private record Key(UUID cycleId, UUID sheetId) {
+    }
+
+    private final int maxEntries;
+    private final Map<Key, SheetSummaryDto> entries;
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public SheetSummaryCache(@Value("${app.dashboardCacheMaxEntries:20000}") int maxEntries, MeterRegistry registry) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, SheetSummaryDto> eldest) {
+                if (size() > SheetSummaryCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        FunctionCounter.builder("okr.dashboard.cache.hits", hits, LongAdder::sum).register(registry);
+        FunctionCounter.builder("okr.dashboard.cache.misses", misses, LongAdder::sum).register(registry);
+        FunctionCounter.builder("okr.dashboard.cache.evictions", evictions, LongAdder::sum).register(registry);
+        Gauge.builder("okr.dashboard.cache.size", this, SheetSummaryCache::size).register(registry);
+    }
+
+    /**
+     * Generation to pass to {@link #put}; read it before loading the card from the database.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Returns a private copy of the cached card, or null on a miss.
+     */
+    public SheetSummaryDto get(UUID cycleId, UUID sheetId) {
+        SheetSummaryDto card;
+        synchronized (entries) {
+            card = entries.get(new Key(cycleId, sheetId));
+        }
+        if (card == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return copy(card);
+    }
+
+    public void put(UUID cycleId, UUID sheetId, SheetSummaryDto card, long observedGeneration) {
+        SheetSummaryDto stored = copy(card);
+        stored.setTitle(null);
+        synchronized (entries) {
+            if (generation.get() != observedGeneration) {
+                return; // Something was invalidated while this card was loading
+            }
+            entries.put(new Key(cycleId, sheetId), stored);
+        }
+    }
+
+    /**
+     * Evicts one card now and again once the surrounding transaction commits, so readers that
+     * reload between the two see the committed state.
+     */
+    public void invalidateSheet(UUID cycleId, UUID sheetId) {
+        Key key = new Key(cycleId, sheetId);
+        Runnable evict = () -> {
+            synchronized (entries) {
+                generation.incrementAndGet();
+                entries.remove(key);
+            }
+        };
+        evict.run();
+        afterCommit(evict);
+    }
+
+    public void invalidateCycle(UUID cycleId) {
+        Runnable evict = () -> {
+            synchronized (entries) {
+                generation.incrementAndGet();
+                entries.keySet().removeIf(k -> k.cycleId().equals(cycleId));
+            }
+        };
+        evict.run();
+        afterCommit(evict);
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private static SheetSummaryDto copy(SheetSummaryDto source) {
+        SheetSummaryDto dto = new SheetSummaryDto();
+        dto.setId(source.getId());
+        dto.setScopeType(source.getScopeType());
+        dto.setScopeId(source.getScopeId());
+        dto.setTitle(source.getTitle());
+        dto.setComputedOverallProgress(source.getComputedOverallProgress());
+        dto.setComputedTimeProgress(source.getComputedTimeProgress());
+        dto.setDaysRemaining(source.getDaysRemaining());
+        dto.setTotalDays(source.getTotalDays());
+        dto.setObjectives(source.getObjectives() != null ? new ArrayList<>(source.getObjectives()) : new ArrayList<>());
+        return dto;
+    }
+}
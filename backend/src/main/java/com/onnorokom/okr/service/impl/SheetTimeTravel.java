@@ -0,0 +1,390 @@
+package com.onnorokom.okr.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onnorokom.okr.dto.AuditEntryDto;
+import com.onnorokom.okr.dto.KeyResultDto;
+import com.onnorokom.okr.dto.ObjectiveDto;
+import com.onnorokom.okr.model.*;
+import com.onnorokom.okr.repository.*;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Point-in-time reconstruction of a sheet's objectives and key results.
+ *
+ * A scheduled job stores a compact checkpoint of every sheet of an open cycle whose version moved
+ * since its last checkpoint. Reconstructing "as of T" starts from the nearest checkpoint at or
+ * before T and replays only what happened after it: KR check-ins for values, progress and
+ * confidence, and audit entries for titles, owners, comments and deletions. The replay window is
+ * therefore bounded by the checkpoint interval, however late in the cycle T is.
+ *
+ * Objectives and KRs created after the checkpoint are taken from their current rows, with audited
+ * fields rolled back to their value at T. A KR created after the checkpoint and deleted after T is
+ * rebuilt from its check-ins and audit entries, without start and target values. An objective
+ * created after the checkpoint and deleted again is not recoverable. Audit entries come from the
+ * archive as well once T is older than the live partitions.
+ */
+@Component
+public class SheetTimeTravel {
+
+    private static final Logger logger = LoggerFactory.getLogger(SheetTimeTravel.class);
+
+    // Writes that were in flight while a checkpoint was taken may be missing from it; every replayed
+    // change sets a value, so replaying a little before the checkpoint is harmless
+    private static final Duration REPLAY_OVERLAP = Duration.ofMinutes(5);
+
+    private static final TypeReference<List<ObjectiveDto>> SNAPSHOT_TYPE = new TypeReference<>() {
+    };
+
+    @Autowired
+    private SheetCheckpointRepository checkpointRepository;
+    @Autowired
+    private CycleRepository cycleRepository;
+    @Autowired
+    private OkrSheetRepository sheetRepository;
+    @Autowired
+    private ObjectiveRepository objectiveRepository;
+    @Autowired
+    private KeyResultRepository krRepository;
+    @Autowired
+    private KeyResultCheckInRepository checkInRepository;
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+    @Autowired
+    private AuditArchive auditArchive;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer reconstructTimer;
+    private DistributionSummary replayedRows;
+
+    @PostConstruct
+    void registerMetrics() {
+        reconstructTimer = Timer.builder("okr.timetravel.reconstruct")
+                .description("Time to reconstruct a sheet as of a past instant")
+                .register(meterRegistry);
+        replayedRows = DistributionSummary.builder("okr.timetravel.replayed.rows")
+                .description("Check-ins and audit entries replayed after the nearest checkpoint")
+                .register(meterRegistry);
+    }
+
+    /** Objectives with their KRs as of a past instant, plus the sheet progress recomputed from them. */
+    public record Reconstruction(List<ObjectiveDto> objectives, double overallProgress) {
+    }
+
+    // ==================== CHECKPOINTS ====================
+
+    @Scheduled(initialDelayString = "PT2M", fixedDelayString = "${app.sheetCheckpointInterval:PT24H}")
+    public void checkpointOpenCycles() {
+        LocalDate today = LocalDate.now();
+        for (Cycle cycle : cycleRepository.findAll()) {
+            // Keep checkpointing for a day past the end so late check-ins are covered
+            if (today.isBefore(cycle.getStartDate()) || today.isAfter(cycle.getEndDate().plusDays(1))) {
+                continue;
+            }
+            List<OkrSheet> sheets = sheetRepository.findByCycleId(cycle.getId());
+            Map<UUID, Long> checkpointed = new HashMap<>();
+            checkpointRepository.findLatestVersions(sheets.stream().map(OkrSheet::getId).toList())
+                    .forEach(v -> checkpointed.put(v.getId(), v.getVersion()));
+
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            for (OkrSheet sheet : sheets) {
+                if (Objects.equals(checkpointed.get(sheet.getId()), sheet.getVersion())) {
+                    continue; // Nothing changed since the last checkpoint
+                }
+                try {
+                    tx.executeWithoutResult(status -> checkpoint(sheet.getId()));
+                } catch (RuntimeException ex) {
+                    logger.error("Checkpoint of sheet {} failed", sheet.getId(), ex);
+                }
+            }
+        }
+    }
+
+    private void checkpoint(UUID sheetId) {
+        Instant takenAt = Instant.now();
+        long version = sheetRepository.findVersionById(sheetId).orElse(0L);
+
+        Map<UUID, ObjectiveDto> objectives = new LinkedHashMap<>();
+        for (Objective obj : objectiveRepository.findBySheetIdOrderBySortOrderAsc(sheetId)) {
+            objectives.put(obj.getId(), mapObjective(obj));
+        }
+        for (KeyResult kr : krRepository.findByObjectiveSheetIdOrderBySortOrderAsc(sheetId)) {
+            ObjectiveDto parent = objectives.get(kr.getObjective().getId());
+            if (parent != null) {
+                parent.getKeyResults().add(mapKeyResult(kr));
+            }
+        }
+
+        SheetCheckpoint checkpoint = new SheetCheckpoint();
+        checkpoint.setSheetId(sheetId);
+        checkpoint.setTakenAt(takenAt);
+        checkpoint.setSheetVersion(version);
+        try {
+            checkpoint.setSnapshot(objectMapper.writeValueAsString(new ArrayList<>(objectives.values())));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize checkpoint of sheet " + sheetId, e);
+        }
+        checkpointRepository.save(checkpoint);
+    }
+
+    // ==================== RECONSTRUCTION ====================
+
+    public Reconstruction reconstruct(UUID sheetId, Instant at) {
+        return reconstructTimer.record(() -> replay(sheetId, at));
+    }
+
+    private Reconstruction replay(UUID sheetId, Instant at) {
+        Optional<SheetCheckpoint> checkpoint = checkpointRepository
+                .findFirstBySheetIdAndTakenAtLessThanEqualOrderByTakenAtDesc(sheetId, at);
+        Instant replayFrom = checkpoint.map(c -> c.getTakenAt().minus(REPLAY_OVERLAP)).orElse(Instant.EPOCH);
+
+        Map<UUID, ObjectiveDto> objectives = new LinkedHashMap<>();
+        Map<UUID, KeyResultDto> krs = new HashMap<>();
+        Map<UUID, UUID> krObjective = new HashMap<>();
+        if (checkpoint.isPresent()) {
+            for (ObjectiveDto obj : readSnapshot(checkpoint.get())) {
+                objectives.put(obj.getId(), obj);
+                for (KeyResultDto kr : obj.getKeyResults()) {
+                    krs.put(kr.getId(), kr);
+                    krObjective.put(kr.getId(), obj.getId());
+                }
+            }
+        }
+
+        // Entities created after the checkpoint (and still present) come from their current rows
+        Set<UUID> fromCurrent = new HashSet<>();
+        for (Objective obj : objectiveRepository.findBySheetIdOrderBySortOrderAsc(sheetId)) {
+            if (!objectives.containsKey(obj.getId()) && createdBy(obj.getCreatedAt(), at)) {
+                objectives.put(obj.getId(), mapObjective(obj));
+                fromCurrent.add(obj.getId());
+            }
+        }
+        for (KeyResult kr : krRepository.findByObjectiveSheetIdOrderBySortOrderAsc(sheetId)) {
+            ObjectiveDto parent = objectives.get(kr.getObjective().getId());
+            if (parent != null && !krs.containsKey(kr.getId()) && createdBy(kr.getCreatedAt(), at)) {
+                KeyResultDto dto = mapKeyResult(kr);
+                parent.getKeyResults().add(dto);
+                krs.put(kr.getId(), dto);
+                krObjective.put(kr.getId(), parent.getId());
+                fromCurrent.add(kr.getId());
+            }
+        }
+
+        // KRs created after the checkpoint and deleted since have no row left, but their check-ins
+        // (kept on delete) show they existed at T; they are rebuilt from those and their audit entries
+        List<KeyResultCheckIn> checkIns = checkInRepository
+                .findBySheetIdAndRecordedAtGreaterThanAndRecordedAtLessThanEqualOrderByRecordedAtAsc(sheetId,
+                        replayFrom, at);
+        for (KeyResultCheckIn checkIn : checkIns) {
+            ObjectiveDto parent = objectives.get(checkIn.getObjectiveId());
+            if (parent != null && !checkIn.isRemoved() && !krs.containsKey(checkIn.getKeyResultId())) {
+                KeyResultDto dto = new KeyResultDto();
+                dto.setId(checkIn.getKeyResultId());
+                parent.getKeyResults().add(dto);
+                krs.put(dto.getId(), dto);
+                krObjective.put(dto.getId(), parent.getId());
+            }
+        }
+        Set<UUID> replayed = new HashSet<>(objectives.keySet());
+        replayed.addAll(krs.keySet());
+        replayed.removeAll(fromCurrent);
+
+        // Checkpointed and rebuilt entities: replay audited changes forward from the checkpoint
+        List<AuditEntryDto> forward = auditEntries(replayed, replayFrom, at);
+        Map<UUID, String> ownerIds = new HashMap<>(); // objectiveId -> owner user id to resolve
+        for (AuditEntryDto entry : forward) {
+            apply(entry, entry.getNewValue(), objectives, krs, krObjective, ownerIds);
+        }
+
+        // Entities from current rows: the first change after T holds the value they had at T
+        List<AuditEntryDto> later = auditEntries(fromCurrent, at, null);
+        Set<String> rolledBack = new HashSet<>();
+        for (AuditEntryDto entry : later) {
+            if (rolledBack.add(entry.getEntityId() + ":" + entry.getFieldName())) {
+                apply(entry, entry.getOldValue(), objectives, krs, krObjective, ownerIds);
+            }
+        }
+        resolveOwners(objectives, ownerIds);
+
+        // KR values, progress and confidence as of T from the check-in series
+        for (KeyResultCheckIn checkIn : checkIns) {
+            KeyResultDto kr = krs.get(checkIn.getKeyResultId());
+            if (kr == null) {
+                continue;
+            }
+            if (checkIn.isRemoved()) {
+                removeKeyResult(kr.getId(), objectives, krs, krObjective);
+                continue;
+            }
+            kr.setCurrentValue(checkIn.getCurrentValue());
+            kr.setComputedProgress(checkIn.getComputedProgress());
+            kr.setConfidenceLevel(checkIn.getConfidenceLevel());
+        }
+        replayedRows.record(forward.size() + later.size() + checkIns.size());
+
+        // Recompute objective and sheet progress the way the rollup does
+        List<ObjectiveDto> result = new ArrayList<>(objectives.values());
+        result.sort(Comparator.comparing(ObjectiveDto::getSortOrder, Comparator.nullsLast(Comparator.naturalOrder())));
+        double sheetSum = 0.0;
+        for (ObjectiveDto obj : result) {
+            obj.getKeyResults().sort(
+                    Comparator.comparing(KeyResultDto::getSortOrder, Comparator.nullsLast(Comparator.naturalOrder())));
+            double krSum = 0.0;
+            for (KeyResultDto kr : obj.getKeyResults()) {
+                kr.setCanEdit(false);
+                krSum += kr.getComputedProgress() != null ? kr.getComputedProgress() : 0.0;
+            }
+            obj.setComputedProgress(obj.getKeyResults().isEmpty() ? 0.0 : krSum / obj.getKeyResults().size());
+            sheetSum += obj.getComputedProgress();
+        }
+        return new Reconstruction(result, result.isEmpty() ? 0.0 : sheetSum / result.size());
+    }
+
+    private static void apply(AuditEntryDto entry, String value, Map<UUID, ObjectiveDto> objectives,
+            Map<UUID, KeyResultDto> krs, Map<UUID, UUID> krObjective, Map<UUID, String> ownerIds) {
+        UUID id = entry.getEntityId();
+        if ("OBJECTIVE".equals(entry.getEntityType())) {
+            ObjectiveDto obj = objectives.get(id);
+            if (obj == null) {
+                return;
+            }
+            switch (entry.getFieldName()) {
+                case "deleted" -> {
+                    objectives.remove(id);
+                    obj.getKeyResults().forEach(kr -> krs.remove(kr.getId()));
+                }
+                case "title" -> obj.setTitle(value);
+                case "owner_user_id" -> ownerIds.put(id, value);
+                default -> {
+                }
+            }
+        } else if ("KEY_RESULT".equals(entry.getEntityType())) {
+            KeyResultDto kr = krs.get(id);
+            if (kr == null) {
+                return;
+            }
+            switch (entry.getFieldName()) {
+                case "deleted" -> removeKeyResult(id, objectives, krs, krObjective);
+                case "created" -> {
+                    if (kr.getTitle() == null) {
+                        kr.setTitle(value); // Rebuilt from check-ins
+                    }
+                }
+                case "comments" -> kr.setComments(value);
+                case "confidence_level" -> kr.setConfidenceLevel(value);
+                default -> {
+                }
+            }
+        }
+    }
+
+    private static void removeKeyResult(UUID id, Map<UUID, ObjectiveDto> objectives, Map<UUID, KeyResultDto> krs,
+            Map<UUID, UUID> krObjective) {
+        krs.remove(id);
+        ObjectiveDto parent = objectives.get(krObjective.get(id));
+        if (parent != null) {
+            parent.getKeyResults().removeIf(k -> k.getId().equals(id));
+        }
+    }
+
+    /**
+     * Audit entries of the given entities with {@code after < occurred_at <= upTo}, oldest first.
+     * Archived months are all older than the live partitions, so they come first; they are only
+     * read when the range reaches into them.
+     */
+    private List<AuditEntryDto> auditEntries(Collection<UUID> entityIds, Instant after, Instant upTo) {
+        if (entityIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<AuditEntryDto> entries = new ArrayList<>(auditArchive.findByEntityIds(entityIds, after, upTo));
+        entries.addAll(auditLogRepository.findByEntityIds(entityIds, after, upTo));
+        return entries;
+    }
+
+    private void resolveOwners(Map<UUID, ObjectiveDto> objectives, Map<UUID, String> ownerIds) {
+        if (ownerIds.isEmpty()) {
+            return;
+        }
+        Set<UUID> userIds = ownerIds.values().stream().filter(Objects::nonNull).map(UUID::fromString)
+                .collect(Collectors.toSet());
+        Map<UUID, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, u -> u));
+        ownerIds.forEach((objectiveId, userId) -> {
+            ObjectiveDto obj = objectives.get(objectiveId);
+            if (obj != null) {
+                User owner = userId != null ? users.get(UUID.fromString(userId)) : null;
+                obj.setOwnerName(owner != null ? displayName(owner) : null);
+            }
+        });
+    }
+
+    private List<ObjectiveDto> readSnapshot(SheetCheckpoint checkpoint) {
+        try {
+            return objectMapper.readValue(checkpoint.getSnapshot(), SNAPSHOT_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Corrupt checkpoint " + checkpoint.getId(), e);
+        }
+    }
+
+    private static boolean createdBy(Instant createdAt, Instant at) {
+        return createdAt != null && !createdAt.isAfter(at);
+    }
+
+    private static ObjectiveDto mapObjective(Objective obj) {
+        ObjectiveDto dto = new ObjectiveDto();
+        dto.setId(obj.getId());
+        dto.setTitle(obj.getTitle());
+        dto.setOwnerName(obj.getOwner() != null ? displayName(obj.getOwner()) : null);
+        dto.setComputedProgress(obj.getComputedProgress());
+        dto.setSortOrder(obj.getSortOrder());
+        dto.setWeight(obj.getWeight());
+        dto.setKeyResults(new ArrayList<>());
+        return dto;
+    }
+
+    private static KeyResultDto mapKeyResult(KeyResult kr) {
+        KeyResultDto dto = new KeyResultDto();
+        dto.setId(kr.getId());
+        dto.setTitle(kr.getTitle());
+        dto.setStartValue(kr.getStartValue());
+        dto.setTargetValue(kr.getTargetValue());
+        dto.setCurrentValue(kr.getCurrentValue());
+        dto.setComputedProgress(kr.getComputedProgress());
+        dto.setOwnerName(kr.getOwner() != null ? displayName(kr.getOwner()) : null);
+        dto.setConfidenceLevel(kr.getConfidenceLevel());
+        dto.setDeadline(kr.getDeadline());
+        dto.setAlignedProjects(kr.getAlignedProjects());
+        dto.setComments(kr.getComments());
+        dto.setSortOrder(kr.getSortOrder());
+        dto.setWeight(kr.getWeight());
+        return dto;
+    }
+
+    private static String displayName(User user) {
+        return user.getName() != null ? user.getName() : user.getEmail();
+    }
+}
@@ -0,0 +1,170 @@
+package com.onnorokom.okr.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onnorokom.okr.dto.AuditEntryDto;
+import com.onnorokom.okr.dto.KeyResultDto;
+import com.onnorokom.okr.dto.ObjectiveDto;
+import com.onnorokom.okr.model.KeyResultCheckIn;
+import com.onnorokom.okr.model.SheetCheckpoint;
+import com.onnorokom.okr.repository.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reconstruction of key results that were deleted after the as-of instant.
+ */
+@ExtendWith(MockitoExtension.class)
+class SheetTimeTravelTest {
+
+    private static final UUID SHEET_ID = UUID.randomUUID();
+    private static final UUID OBJECTIVE_ID = UUID.randomUUID();
+    private static final Instant AT = Instant.parse("2026-03-10T12:00:00Z");
+
+    @Mock
+    private SheetCheckpointRepository checkpointRepository;
+    @Mock
+    private CycleRepository cycleRepository;
+    @Mock
+    private OkrSheetRepository sheetRepository;
+    @Mock
+    private ObjectiveRepository objectiveRepository;
+    @Mock
+    private KeyResultRepository krRepository;
+    @Mock
+    private KeyResultCheckInRepository checkInRepository;
+    @Mock
+    private AuditLogRepository auditLogRepository;
+    @Mock
+    private AuditArchive auditArchive;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private SheetTimeTravel timeTravel;
+
+    @BeforeEach
+    void setUp() {
+        timeTravel.registerMetrics();
+    }
+
+    @Test
+    void checkpointedKeyResultDeletedAfterAtKeepsItsProgressAtThatTime() throws Exception {
+        UUID krId = UUID.randomUUID();
+        givenCheckpoint(AT.minus(Duration.ofHours(1)), keyResult(krId, "Ship v2", 0.2));
+        // The KR was deleted after AT: no current row, but its check-ins are kept
+        givenCheckIns(checkIn(krId, AT.minus(Duration.ofMinutes(30)), 0.6, false));
+
+        SheetTimeTravel.Reconstruction past = timeTravel.reconstruct(SHEET_ID, AT);
+
+        assertThat(past.objectives()).hasSize(1);
+        List<KeyResultDto> krs = past.objectives().get(0).getKeyResults();
+        assertThat(krs).extracting(KeyResultDto::getId).containsExactly(krId);
+        assertThat(krs.get(0).getTitle()).isEqualTo("Ship v2");
+        assertThat(krs.get(0).getComputedProgress()).isEqualTo(0.6);
+        assertThat(past.overallProgress()).isEqualTo(0.6);
+    }
+
+    @Test
+    void keyResultCreatedAfterCheckpointAndDeletedAfterAtIsRebuiltFromCheckIns() throws Exception {
+        UUID krId = UUID.randomUUID();
+        givenCheckpoint(AT.minus(Duration.ofHours(1)));
+        givenCheckIns(
+                checkIn(krId, AT.minus(Duration.ofMinutes(20)), 0.0, false),
+                checkIn(krId, AT.minus(Duration.ofMinutes(10)), 0.5, false));
+        AuditEntryDto created = new AuditEntryDto();
+        created.setEntityType("KEY_RESULT");
+        created.setEntityId(krId);
+        created.setFieldName("created");
+        created.setNewValue("Hire two engineers");
+        created.setOccurredAt(AT.minus(Duration.ofMinutes(20)));
+        when(auditLogRepository.findByEntityIds(any(), any(), eq(AT))).thenReturn(new ArrayList<>(List.of(created)));
+
+        SheetTimeTravel.Reconstruction past = timeTravel.reconstruct(SHEET_ID, AT);
+
+        List<KeyResultDto> krs = past.objectives().get(0).getKeyResults();
+        assertThat(krs).extracting(KeyResultDto::getId).containsExactly(krId);
+        assertThat(krs.get(0).getTitle()).isEqualTo("Hire two engineers");
+        assertThat(krs.get(0).getComputedProgress()).isEqualTo(0.5);
+        assertThat(past.overallProgress()).isEqualTo(0.5);
+    }
+
+    @Test
+    void keyResultDeletedBeforeAtIsGone() throws Exception {
+        UUID krId = UUID.randomUUID();
+        givenCheckpoint(AT.minus(Duration.ofHours(1)), keyResult(krId, "Ship v2", 0.2));
+        givenCheckIns(
+                checkIn(krId, AT.minus(Duration.ofMinutes(30)), 0.6, false),
+                checkIn(krId, AT.minus(Duration.ofMinutes(5)), 0.6, true));
+
+        SheetTimeTravel.Reconstruction past = timeTravel.reconstruct(SHEET_ID, AT);
+
+        assertThat(past.objectives().get(0).getKeyResults()).isEmpty();
+        assertThat(past.overallProgress()).isEqualTo(0.0);
+    }
+
+    private void givenCheckpoint(Instant takenAt, KeyResultDto... krs) throws Exception {
+        ObjectiveDto objective = new ObjectiveDto();
+        objective.setId(OBJECTIVE_ID);
+        objective.setTitle("Grow the platform");
+        objective.setSortOrder(1);
+        objective.setKeyResults(new ArrayList<>(List.of(krs)));
+
+        SheetCheckpoint checkpoint = new SheetCheckpoint();
+        checkpoint.setSheetId(SHEET_ID);
+        checkpoint.setTakenAt(takenAt);
+        checkpoint.setSheetVersion(1L);
+        checkpoint.setSnapshot(objectMapper.writeValueAsString(List.of(objective)));
+        when(checkpointRepository.findFirstBySheetIdAndTakenAtLessThanEqualOrderByTakenAtDesc(SHEET_ID, AT))
+                .thenReturn(Optional.of(checkpoint));
+    }
+
+    private void givenCheckIns(KeyResultCheckIn... checkIns) {
+        when(checkInRepository.findBySheetIdAndRecordedAtGreaterThanAndRecordedAtLessThanEqualOrderByRecordedAtAsc(
+                eq(SHEET_ID), any(), eq(AT))).thenReturn(List.of(checkIns));
+    }
+
+    private static KeyResultDto keyResult(UUID id, String title, double progress) {
+        KeyResultDto kr = new KeyResultDto();
+        kr.setId(id);
+        kr.setTitle(title);
+        kr.setComputedProgress(progress);
+        kr.setSortOrder(1);
+        return kr;
+    }
+
+    private static KeyResultCheckIn checkIn(UUID krId, Instant at, double progress, boolean removed) {
+        KeyResultCheckIn checkIn = new KeyResultCheckIn();
+        checkIn.setKeyResultId(krId);
+        checkIn.setObjectiveId(OBJECTIVE_ID);
+        checkIn.setSheetId(SHEET_ID);
+        checkIn.setRecordedAt(at);
+        checkIn.setComputedProgress(progress);
+        checkIn.setRemoved(removed);
+        return checkIn;
+    }
+}
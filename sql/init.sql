@@ -34,9 +34,30 @@ CREATE TABLE users (
     password_hash VARCHAR(255) NOT NULL, -- In real app, this would be hashed. For seed/MVP using simple text or placeholder.
     pin VARCHAR(6) NOT NULL,
     is_blocked BOOLEAN DEFAULT FALSE,
+    security_version BIGINT NOT NULL DEFAULT 0, -- Bumped on block/role change; tokens carrying an older value are rejected
     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Keyset pagination of department members on the dashboard
+CREATE INDEX idx_users_department_email ON users (department_id, email);
+CREATE INDEX idx_users_team ON users (team_id);
+
+-- 4b. ORG CLOSURE
+-- One row per (ancestor, descendant) pair over company -> team -> department -> user, plus a
+-- depth-0 row per node. Kept in sync by AdminServiceImpl and CascadeDeleter. Selects the sheets
+-- under a scope in one indexed join (editable sheets of team/department admins, a team's
+-- department cards) instead of listing every department and member id.
+CREATE TABLE org_closure (
+    ancestor_id UUID NOT NULL,
+    ancestor_type VARCHAR(50) NOT NULL, -- COMPANY, TEAM, DEPARTMENT, USER
+    descendant_id UUID NOT NULL,
+    descendant_type VARCHAR(50) NOT NULL,
+    depth INTEGER NOT NULL,
+    PRIMARY KEY (ancestor_id, descendant_id)
+);
+
+CREATE INDEX idx_org_closure_descendant ON org_closure (descendant_id, ancestor_type);
+
 -- 5. ROLE ASSIGNMENTS
 -- Scope types: COMPANY, TEAM, DEPARTMENT, PERSONAL
 CREATE TABLE role_assignments (
@@ -48,6 +69,17 @@ CREATE TABLE role_assignments (
     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
 );
 
+CREATE INDEX idx_role_assignments_user ON role_assignments (user_id);
+CREATE INDEX idx_role_assignments_scope ON role_assignments (scope_type, scope_id);
+
+-- Bumped in the same transaction as every role, membership or org structure change. Each node
+-- polls it and reloads its in-memory ACL index when another node changed it (AclIndex).
+CREATE TABLE acl_version (
+    id BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id), -- Single row
+    version BIGINT NOT NULL DEFAULT 0
+);
+INSERT INTO acl_version DEFAULT VALUES;
+
 -- 6. CYCLES
 CREATE TABLE cycles (
     id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
@@ -67,9 +99,27 @@ CREATE TABLE okr_sheets (
     is_held BOOLEAN DEFAULT FALSE,
     computed_overall_progress DOUBLE PRECISION DEFAULT 0.0,
     computed_time_progress DOUBLE PRECISION DEFAULT 0.0,
+    objective_progress_sum DOUBLE PRECISION NOT NULL DEFAULT 0.0, -- Running aggregates for incremental rollup
+    objective_count INTEGER NOT NULL DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0, -- Bumped on every objective/KR mutation; drives HTTP ETags
     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
 );
 
+-- One sheet per scope and cycle; cycle rollover relies on it (ON CONFLICT DO NOTHING)
+CREATE UNIQUE INDEX uq_okr_sheets_cycle_scope ON okr_sheets (cycle_id, scope_type, scope_id);
+-- Scope lookups across cycles (cascading deletes of a user, team or department)
+CREATE INDEX idx_okr_sheets_scope ON okr_sheets (scope_type, scope_id);
+
+-- Sheets with a deferred recompute (app.rollupMode=async); marked_at moves on every write and feeds
+-- the dashboard ETag until the recompute lands. Written in the writing transaction and
+-- deleted by the rollup worker in the recompute transaction; left-over rows are recomputed on startup.
+-- No FK: the sheet may still be unflushed in the writing transaction, and a row for a deleted
+-- sheet is simply dropped by the worker
+CREATE TABLE rollup_pending (
+    sheet_id UUID PRIMARY KEY,
+    marked_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
 -- 8. OBJECTIVES
 CREATE TABLE objectives (
     id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
@@ -77,10 +127,20 @@ CREATE TABLE objectives (
     title TEXT NOT NULL,
     owner_user_id UUID REFERENCES users(id),
     sort_order INTEGER DEFAULT 0,
+    weight INTEGER DEFAULT 100,
     computed_progress DOUBLE PRECISION DEFAULT 0.0,
+    kr_progress_sum DOUBLE PRECISION NOT NULL DEFAULT 0.0, -- Running aggregates for incremental rollup
+    kr_count INTEGER NOT NULL DEFAULT 0,
+    rolled_over_from UUID, -- Source objective when copied by a cycle rollover (CycleRollover)
     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Foreign-key columns: set-based deletes and the FK checks they trigger look rows up by these
+CREATE INDEX idx_objectives_sheet ON objectives (sheet_id);
+CREATE INDEX idx_objectives_owner ON objectives (owner_user_id) WHERE owner_user_id IS NOT NULL;
+-- A source objective is copied at most once into a given sheet; makes rollovers re-runnable
+CREATE UNIQUE INDEX uq_objectives_rollover ON objectives (sheet_id, rolled_over_from) WHERE rolled_over_from IS NOT NULL;
+
 -- 9. KEY RESULTS
 CREATE TABLE key_results (
     id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
@@ -97,21 +157,125 @@ CREATE TABLE key_results (
     aligned_projects TEXT,
     comments TEXT,
     sort_order INTEGER DEFAULT 0,
+    weight INTEGER DEFAULT 0,
+    rolled_over_from UUID, -- Source key result when copied by a cycle rollover
     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
 );
 
+CREATE INDEX idx_key_results_objective ON key_results (objective_id);
+CREATE INDEX idx_key_results_owner ON key_results (owner_user_id) WHERE owner_user_id IS NOT NULL;
+CREATE UNIQUE INDEX uq_key_results_rollover ON key_results (objective_id, rolled_over_from) WHERE rolled_over_from IS NOT NULL;
+
+-- 9b. KEY RESULT CHECK-INS (append-only progress time series)
+-- objective_id / sheet_id are denormalized so objective and sheet trends are one index range scan.
+-- No foreign key to key_results: history outlives a deleted KR, which ends its series with a
+-- removed row instead. Check-ins are only deleted together with their sheet.
+CREATE TABLE key_result_checkins (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    key_result_id UUID NOT NULL,
+    objective_id UUID NOT NULL,
+    sheet_id UUID NOT NULL,
+    recorded_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    current_value DOUBLE PRECISION,
+    computed_progress DOUBLE PRECISION NOT NULL,
+    confidence_level VARCHAR(50),
+    removed BOOLEAN NOT NULL DEFAULT FALSE -- The KR was deleted at recorded_at
+);
+
+-- Rows arrive in time order, so a BRIN index covers time-window scans at a fraction of a B-tree's size
+CREATE INDEX idx_kr_checkins_recorded_at ON key_result_checkins USING BRIN (recorded_at);
+CREATE INDEX idx_kr_checkins_kr_time ON key_result_checkins (key_result_id, recorded_at);
+CREATE INDEX idx_kr_checkins_sheet_time ON key_result_checkins (sheet_id, recorded_at);
+
 -- 10. AUDIT LOG
+-- Range-partitioned by month on occurred_at. The application creates partitions ahead of time
+-- and archives partitions past the retention window into audit_archive (AuditPartitionManager).
 CREATE TABLE audit_log (
-    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    id UUID NOT NULL DEFAULT uuid_generate_v4(),
     actor_user_id UUID REFERENCES users(id),
     entity_type VARCHAR(50) NOT NULL, -- OBJECTIVE, KEY_RESULT, SHEET
     entity_id UUID NOT NULL,
-    field_name VARCHAR(50) NOT NULL,
+    field_name VARCHAR(50), -- NULL on compact rows
     old_value TEXT,
     new_value TEXT,
-    occurred_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+    changes JSONB, -- Compact rows (app.auditFormat=compact): {"field": [old, new], ...} for one mutation
+    occurred_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, occurred_at)
+) PARTITION BY RANGE (occurred_at);
+
+-- Safety net for rows outside every monthly partition; AuditPartitionManager moves any rows here into their month
+CREATE TABLE audit_log_default PARTITION OF audit_log DEFAULT;
+
+-- Partitions are UTC calendar months; bounds carry an explicit offset so the session time zone does not matter
+DO $$
+DECLARE
+    month_start TIMESTAMP;
+BEGIN
+    FOR i IN -1..3 LOOP
+        month_start := date_trunc('month', now() AT TIME ZONE 'UTC') + make_interval(months => i);
+        EXECUTE format('CREATE TABLE audit_log_%s PARTITION OF audit_log FOR VALUES FROM (%L) TO (%L)',
+                to_char(month_start, 'YYYY_MM'), to_char(month_start, 'YYYY-MM-DD') || ' 00:00:00+00',
+                to_char(month_start + INTERVAL '1 month', 'YYYY-MM-DD') || ' 00:00:00+00');
+    END LOOP;
+END $$;
+
+-- History queries page by (occurred_at, id) descending within each filter
+CREATE INDEX idx_audit_log_entity ON audit_log (entity_type, entity_id, occurred_at DESC, id DESC);
+CREATE INDEX idx_audit_log_actor ON audit_log (actor_user_id, occurred_at DESC, id DESC);
+CREATE INDEX idx_audit_log_occurred ON audit_log (occurred_at DESC, id DESC);
+
+-- Transactional outbox for app.auditMode=outbox: entries are written here with the change they
+-- describe (no secondary indexes or partition routing), and AuditBatchWriter moves them into
+-- audit_log in batches. Actors deleted in between are stored as NULL.
+CREATE TABLE audit_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    actor_user_id UUID,
+    entity_type VARCHAR(50) NOT NULL,
+    entity_id UUID NOT NULL,
+    field_name VARCHAR(50),
+    old_value TEXT,
+    new_value TEXT,
+    changes JSONB,
+    occurred_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- Months moved out of audit_log after the retention window, shared by all nodes.
+-- One row per UTC month: gzip'd NDJSON ordered by (occurred_at, id) descending.
+CREATE TABLE audit_archive (
+    month DATE PRIMARY KEY, -- First day of the month
+    entry_count BIGINT NOT NULL,
+    data BYTEA NOT NULL,
+    archived_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 11. SHEET CHECKPOINTS
+-- Periodic compact snapshots of a sheet's objectives and KRs. Point-in-time reconstruction starts
+-- from the nearest checkpoint and replays only the check-ins and audit entries after it.
+CREATE TABLE sheet_checkpoints (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    sheet_id UUID NOT NULL REFERENCES okr_sheets(id) ON DELETE CASCADE,
+    taken_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    sheet_version BIGINT NOT NULL,
+    snapshot JSONB NOT NULL
 );
 
+CREATE INDEX idx_sheet_checkpoints_sheet_time ON sheet_checkpoints (sheet_id, taken_at);
+
+-- Opaque refresh tokens, stored as SHA-256 hashes. Each use rotates the token within its family;
+-- presenting an already rotated token revokes the whole family (it was copied).
+CREATE TABLE refresh_tokens (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    family_id UUID NOT NULL,
+    token_hash VARCHAR(64) UNIQUE NOT NULL,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    revoked_at TIMESTAMP WITH TIME ZONE,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_refresh_tokens_user ON refresh_tokens (user_id);
+CREATE INDEX idx_refresh_tokens_family ON refresh_tokens (family_id);
+
 -- SEED DATA
 
 -- 1. Company
@@ -245,4 +409,51 @@ INSERT INTO key_results (id, objective_id, title, start_value, target_value, cur
 ('88888888-8888-8888-8888-111111111122', '77777777-7777-7777-7777-999999999999', 'Complete ISTQB certification', 0, 100, 40, 0.40, '44444444-4444-4444-4444-444444444444', 'ON_TRACK', '2024-03-31', 'Learning Portal', 'Studying for exam', 1),
 ('88888888-8888-8888-8888-222222222233', '77777777-7777-7777-7777-999999999999', 'Automate 10 test cases', 0, 10, 4, 0.40, '44444444-4444-4444-4444-444444444444', 'AT_RISK', '2024-03-31', NULL, 'Need to speed up', 2);
 
+-- Seed the running progress aggregates from the data above
+UPDATE objectives o SET
+    kr_progress_sum = agg.progress_sum,
+    kr_count = agg.kr_count,
+    computed_progress = CASE WHEN agg.kr_count > 0 THEN agg.progress_sum / agg.kr_count ELSE 0 END
+FROM (SELECT o2.id, COALESCE(SUM(k.computed_progress), 0) AS progress_sum, COUNT(k.id) AS kr_count
+      FROM objectives o2 LEFT JOIN key_results k ON k.objective_id = o2.id GROUP BY o2.id) agg
+WHERE o.id = agg.id;
+
+UPDATE okr_sheets s SET
+    objective_progress_sum = agg.progress_sum,
+    objective_count = agg.objective_count,
+    computed_overall_progress = CASE WHEN agg.objective_count > 0 THEN agg.progress_sum / agg.objective_count ELSE 0 END
+FROM (SELECT s2.id, COALESCE(SUM(o.computed_progress), 0) AS progress_sum, COUNT(o.id) AS objective_count
+      FROM okr_sheets s2 LEFT JOIN objectives o ON o.sheet_id = s2.id GROUP BY s2.id) agg
+WHERE s.id = agg.id;
+
+-- Initial check-in for every seeded KR so progress history starts from the seed values
+INSERT INTO key_result_checkins (key_result_id, objective_id, sheet_id, recorded_at, current_value, computed_progress, confidence_level)
+SELECT k.id, k.objective_id, o.sheet_id, k.created_at, k.current_value, k.computed_progress, k.confidence_level
+FROM key_results k JOIN objectives o ON o.id = k.objective_id;
+
+-- Org closure for the seeded hierarchy: self rows, then each edge joined with its parent's ancestors
+INSERT INTO org_closure (ancestor_id, ancestor_type, descendant_id, descendant_type, depth)
+SELECT id, 'COMPANY', id, 'COMPANY', 0 FROM companies
+UNION ALL SELECT id, 'TEAM', id, 'TEAM', 0 FROM teams
+UNION ALL SELECT id, 'DEPARTMENT', id, 'DEPARTMENT', 0 FROM departments
+UNION ALL SELECT id, 'USER', id, 'USER', 0 FROM users;
+
+INSERT INTO org_closure (ancestor_id, ancestor_type, descendant_id, descendant_type, depth)
+SELECT company_id, 'COMPANY', id, 'TEAM', 1 FROM teams;
+
+INSERT INTO org_closure (ancestor_id, ancestor_type, descendant_id, descendant_type, depth)
+SELECT c.ancestor_id, c.ancestor_type, d.id, 'DEPARTMENT', c.depth + 1
+FROM departments d JOIN org_closure c ON c.descendant_id = d.team_id;
+
+INSERT INTO org_closure (ancestor_id, ancestor_type, descendant_id, descendant_type, depth)
+SELECT c.ancestor_id, c.ancestor_type, u.id, 'USER', c.depth + 1
+FROM users u JOIN org_closure c ON c.descendant_id = COALESCE(u.department_id, u.team_id)
+ON CONFLICT DO NOTHING;
+
+INSERT INTO org_closure (ancestor_id, ancestor_type, descendant_id, descendant_type, depth)
+SELECT c.ancestor_id, c.ancestor_type, u.id, 'USER', c.depth + 1
+FROM users u JOIN org_closure c ON c.descendant_id = u.team_id
+WHERE u.department_id IS NOT NULL
+ON CONFLICT DO NOTHING;
+
 -- Data is ready for Phase A verification